@@ -0,0 +1,78 @@
+package io.github.alopukhov.dare.clg.jfr;
+
+import io.github.alopukhov.dare.clg.spi.GraphEventHook;
+
+import java.util.concurrent.TimeUnit;
+
+public class JfrGraphEventHook implements GraphEventHook {
+    public static final String THRESHOLD_PROPERTY = "dare.clg.jfr.slow.threshold.micros";
+    private static final long DEFAULT_THRESHOLD_MICROS = 1000;
+    private final long thresholdNanos;
+
+    public JfrGraphEventHook() {
+        this(TimeUnit.MICROSECONDS.toNanos(Long.getLong(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD_MICROS)));
+    }
+
+    public JfrGraphEventHook(long thresholdNanos) {
+        this.thresholdNanos = thresholdNanos;
+    }
+
+    @Override
+    public Span startPhase(String phase) {
+        final MaterializationPhaseEvent event = new MaterializationPhaseEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.phase = phase;
+        event.begin();
+        return outcome -> {
+            event.outcome = outcome;
+            event.commit();
+        };
+    }
+
+    @Override
+    public Span startSourceResolution(String nodeName, String source) {
+        final SourceResolutionEvent event = new SourceResolutionEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.node = nodeName;
+        event.source = source;
+        event.begin();
+        return outcome -> {
+            event.outcome = outcome;
+            event.commit();
+        };
+    }
+
+    @Override
+    public long getSlowCallThresholdNanos() {
+        return thresholdNanos;
+    }
+
+    @Override
+    public void slowClassLookup(String nodeName, String className, String step, boolean found, long durationNanos) {
+        SlowClassLookupEvent event = new SlowClassLookupEvent();
+        if (event.shouldCommit()) {
+            event.node = nodeName;
+            event.className = className;
+            event.step = step;
+            event.found = found;
+            event.lookupDuration = durationNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void slowResourceLookup(String nodeName, String resourceName, boolean found, long durationNanos) {
+        SlowResourceLookupEvent event = new SlowResourceLookupEvent();
+        if (event.shouldCommit()) {
+            event.node = nodeName;
+            event.resourceName = resourceName;
+            event.found = found;
+            event.lookupDuration = durationNanos;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package io.github.alopukhov.dare.clg.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.github.alopukhov.dare.clg.MaterializationPhase")
+@Label("Graph Materialization Phase")
+@Category({"Dare CLG", "Materialization"})
+class MaterializationPhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+    @Label("Outcome")
+    String outcome;
+}
@@ -0,0 +1,24 @@
+package io.github.alopukhov.dare.clg.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("io.github.alopukhov.dare.clg.SlowClassLookup")
+@Label("Slow Class Lookup")
+@Category({"Dare CLG", "Class Loading"})
+class SlowClassLookupEvent extends Event {
+    @Label("Node")
+    String node;
+    @Label("Class Name")
+    String className;
+    @Label("Strategy Step")
+    String step;
+    @Label("Found")
+    boolean found;
+    @Label("Lookup Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long lookupDuration;
+}
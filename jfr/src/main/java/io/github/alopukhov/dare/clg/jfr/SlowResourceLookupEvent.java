@@ -0,0 +1,22 @@
+package io.github.alopukhov.dare.clg.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("io.github.alopukhov.dare.clg.SlowResourceLookup")
+@Label("Slow Resource Lookup")
+@Category({"Dare CLG", "Class Loading"})
+class SlowResourceLookupEvent extends Event {
+    @Label("Node")
+    String node;
+    @Label("Resource Name")
+    String resourceName;
+    @Label("Found")
+    boolean found;
+    @Label("Lookup Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long lookupDuration;
+}
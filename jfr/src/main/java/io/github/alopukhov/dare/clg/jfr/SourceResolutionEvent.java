@@ -0,0 +1,18 @@
+package io.github.alopukhov.dare.clg.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.github.alopukhov.dare.clg.SourceResolution")
+@Label("Source Resolution")
+@Category({"Dare CLG", "Materialization"})
+class SourceResolutionEvent extends Event {
+    @Label("Node")
+    String node;
+    @Label("Source")
+    String source;
+    @Label("Outcome")
+    String outcome;
+}
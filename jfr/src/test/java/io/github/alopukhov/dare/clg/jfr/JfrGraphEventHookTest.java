@@ -0,0 +1,66 @@
+package io.github.alopukhov.dare.clg.jfr;
+
+import io.github.alopukhov.dare.clg.ClassLoaderGraph;
+import io.github.alopukhov.dare.clg.ClassLoaderGraphDefinition;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.github.alopukhov.dare.clg.ClassloaderGraphFactory.defineNewGraph;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JfrGraphEventHookTest {
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void materializationAndSlowLookupsAreRecorded() throws Exception {
+        System.setProperty(JfrGraphEventHook.THRESHOLD_PROPERTY, "0");
+        Path recordingFile = tempFolder.getRoot().toPath().resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(MaterializationPhaseEvent.class);
+            recording.enable(SourceResolutionEvent.class);
+            recording.enable(SlowClassLookupEvent.class);
+            recording.enable(SlowResourceLookupEvent.class);
+            recording.start();
+            ClassLoaderGraphDefinition gd = defineNewGraph();
+            gd.getOrCreateNode("app").addSource(tempFolder.getRoot().toString() + "/");
+            try (ClassLoaderGraph graph = gd.materialize(JfrGraphEventHookTest.class.getClassLoader())) {
+                ClassLoader cl = graph.getNode("app").getClassLoader();
+                assertThat(cl.getResource("missing.txt")).isNull();
+                try {
+                    cl.loadClass("Missing");
+                } catch (ClassNotFoundException expected) {
+                    // expected
+                }
+            }
+            recording.stop();
+            recording.dump(recordingFile);
+        } finally {
+            System.clearProperty(JfrGraphEventHook.THRESHOLD_PROPERTY);
+        }
+        List<String> events = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(recordingFile)) {
+            String name = event.getEventType().getName();
+            if (name.endsWith("SlowClassLookup")) {
+                events.add(name + ":" + event.getString("className") + ":" + event.getString("step"));
+            } else if (name.endsWith("SourceResolution")) {
+                events.add(name + ":" + event.getString("node") + ":" + event.getString("outcome"));
+            } else {
+                events.add(name);
+            }
+        }
+        assertThat(events).contains(
+                "io.github.alopukhov.dare.clg.MaterializationPhase",
+                "io.github.alopukhov.dare.clg.SourceResolution:app:resolved",
+                "io.github.alopukhov.dare.clg.SlowClassLookup:Missing:miss",
+                "io.github.alopukhov.dare.clg.SlowResourceLookup");
+    }
+}
@@ -2,6 +2,7 @@ package io.github.alopukhov.dare.clg;
 
 import java.io.Closeable;
 import java.util.Collection;
+import java.util.Set;
 
 public interface ClassLoaderGraph extends Closeable {
     ClassLoader getParentClassLoader();
@@ -11,4 +12,6 @@ public interface ClassLoaderGraph extends Closeable {
     Collection<ClassLoaderNode> getAllNodes();
 
     Collection<ClassLoaderNode> getOrphanNodes();
+
+    Set<String> rematerialize(ClassLoaderGraphDefinition definition) throws MaterializationException;
 }
@@ -1,5 +1,6 @@
 package io.github.alopukhov.dare.clg;
 
+import java.nio.file.Path;
 import java.util.Collection;
 
 public interface ClassLoaderGraphDefinition {
@@ -19,7 +20,37 @@ public interface ClassLoaderGraphDefinition {
 
     ClassLoaderGraphDefinition setDefaultLoadingStrategy(ClassLoadingStrategy strategy);
 
+    Path getPreloadProfile();
+
+    ClassLoaderGraphDefinition setPreloadProfile(Path profile);
+
+    Path getDownloadCacheDirectory();
+
+    ClassLoaderGraphDefinition setDownloadCacheDirectory(Path directory);
+
+    Path getPlanCacheFile();
+
+    ClassLoaderGraphDefinition setPlanCacheFile(Path file);
+
+    Path getTransformCacheDirectory();
+
+    ClassLoaderGraphDefinition setTransformCacheDirectory(Path directory);
+
+    boolean isJmxEnabled();
+
+    ClassLoaderGraphDefinition setJmxEnabled(boolean enabled);
+
+    boolean isPlatformFastPathEnabled();
+
+    ClassLoaderGraphDefinition setPlatformFastPathEnabled(boolean enabled);
+
+    boolean isLazyMaterialization();
+
+    ClassLoaderGraphDefinition setLazyMaterialization(boolean lazy);
+
     ClassLoaderGraph materialize() throws MaterializationException;
 
     ClassLoaderGraph materialize(ClassLoader classLoader) throws MaterializationException;
+
+    ClassLoaderGraph materialize(ClassLoader classLoader, int parallelism) throws MaterializationException;
 }
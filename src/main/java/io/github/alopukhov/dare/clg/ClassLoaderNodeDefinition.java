@@ -1,5 +1,7 @@
 package io.github.alopukhov.dare.clg;
 
+import io.github.alopukhov.dare.clg.spi.BytecodeTransformer;
+
 import java.util.Collection;
 import java.util.List;
 
@@ -30,6 +32,28 @@ public interface ClassLoaderNodeDefinition {
 
     ClassLoaderNodeDefinition setLoadingStrategy(ClassLoadingStrategy strategy);
 
+    SourceEngine getSourceEngine();
+
+    ClassLoaderNodeDefinition setSourceEngine(String engine);
+
+    ClassLoaderNodeDefinition setSourceEngine(SourceEngine engine);
+
+    LockMode getLockMode();
+
+    ClassLoaderNodeDefinition setLockMode(String mode);
+
+    ClassLoaderNodeDefinition setLockMode(LockMode mode);
+
+    int getResourceCacheSize();
+
+    ClassLoaderNodeDefinition setResourceCacheSize(int size);
+
+    ClassLoaderNodeDefinition addTransformer(String transformer);
+
+    ClassLoaderNodeDefinition addTransformer(BytecodeTransformer transformer);
+
+    List<BytecodeTransformer> getTransformers();
+
     ClassLoaderNodeDefinition addImportClasses(ClassLoaderNodeDefinition from, String path);
 
     ClassLoaderNodeDefinition addImportClasses(String from, String path);
@@ -0,0 +1,29 @@
+package io.github.alopukhov.dare.clg;
+
+public interface ClassLoaderNodeMXBean {
+    String getNodeName();
+
+    long getLoadClassCalls();
+
+    long getAlreadyLoaded();
+
+    long getParentHits();
+
+    long getSelfHits();
+
+    long getImportHits();
+
+    long getClassMisses();
+
+    long getNegativeCacheHits();
+
+    long getResourceLookups();
+
+    long getResourceMisses();
+
+    long getResourceCacheHits();
+
+    long getLoadClassTotalNanos();
+
+    long[] getLoadClassLatencyHistogram();
+}
@@ -0,0 +1,9 @@
+package io.github.alopukhov.dare.clg;
+
+public enum LockMode {
+    PER_NAME, TRANSIENT;
+
+    public static LockMode byName(String name) {
+        return valueOf(name.trim().replace('-', '_').toUpperCase());
+    }
+}
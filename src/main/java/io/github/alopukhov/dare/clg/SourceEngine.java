@@ -0,0 +1,9 @@
+package io.github.alopukhov.dare.clg;
+
+public enum SourceEngine {
+    URL_CLASS_LOADER, JAR_FILE, MEMORY_MAPPED;
+
+    public static SourceEngine byName(String name) {
+        return valueOf(name.trim().replace('-', '_').toUpperCase());
+    }
+}
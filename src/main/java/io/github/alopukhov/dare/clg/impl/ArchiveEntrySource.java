@@ -0,0 +1,140 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+class ArchiveEntrySource extends EntrySource {
+    private final ZipDirectory directory;
+    private final String prefix;
+    private final String entryUrlBase;
+    private final URLStreamHandler handler;
+    private volatile Manifest manifest;
+    private volatile boolean closed;
+
+    private ArchiveEntrySource(URL url, ZipDirectory directory, String prefix, boolean nested) {
+        super(url);
+        this.directory = directory;
+        this.prefix = prefix;
+        this.entryUrlBase = nested ? "jar:" + url + "!/" : url.toString();
+        this.handler = nested ? new NestedEntryHandler() : null;
+    }
+
+    static ArchiveEntrySource nestedJar(URL url, ZipDirectory nestedJar) {
+        return new ArchiveEntrySource(url, nestedJar, "", true);
+    }
+
+    static ArchiveEntrySource nestedDirectory(URL url, ZipDirectory outerJar, String directoryName) {
+        return new ArchiveEntrySource(url, outerJar, directoryName, false);
+    }
+
+    @Override
+    Collection<String> listEntries() throws IOException {
+        if (JarEntrySource.isMultiRelease(getManifest())) {
+            return null;
+        }
+        if (prefix.isEmpty()) {
+            return directory.names();
+        }
+        List<String> result = new ArrayList<>();
+        for (String name : directory.names()) {
+            if (name.startsWith(prefix)) {
+                result.add(name.substring(prefix.length()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    URL getEntryUrl(String name) {
+        String spec = entryUrlBase + encodePath(name);
+        try {
+            return handler == null ? new URL(spec) : new URL(null, spec, handler);
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    @Override
+    LoadedEntry readEntry(String name) throws IOException {
+        byte[] bytes = read(name);
+        return bytes == null ? null : new LoadedEntry(bytes, null);
+    }
+
+    @Override
+    Manifest getManifest() throws IOException {
+        Manifest result = manifest;
+        if (result == null) {
+            byte[] bytes = read(JarFile.MANIFEST_NAME);
+            if (bytes == null) {
+                return null;
+            }
+            result = new Manifest(new ByteArrayInputStream(bytes));
+            manifest = result;
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    private byte[] read(String name) throws IOException {
+        if (closed) {
+            throw new IOException("Source " + getUrl() + " is closed");
+        }
+        int index = directory.indexOf(prefix + name);
+        return index < 0 ? null : directory.read(index);
+    }
+
+    private class NestedEntryHandler extends URLStreamHandler {
+        @Override
+        protected URLConnection openConnection(URL u) throws IOException {
+            String spec = u.toString();
+            if (!spec.startsWith(entryUrlBase)) {
+                throw new IOException("Url " + u + " doesn't belong to " + getUrl());
+            }
+            final String name = decodePath(spec.substring(entryUrlBase.length()));
+            return new URLConnection(u) {
+                private byte[] bytes;
+
+                @Override
+                public void connect() throws IOException {
+                    if (bytes == null) {
+                        bytes = read(name);
+                        if (bytes == null) {
+                            throw new IOException("Entry " + name + " not found in " + getUrl());
+                        }
+                        connected = true;
+                    }
+                }
+
+                @Override
+                public InputStream getInputStream() throws IOException {
+                    connect();
+                    return new ByteArrayInputStream(bytes);
+                }
+
+                @Override
+                public int getContentLength() {
+                    try {
+                        connect();
+                    } catch (IOException e) {
+                        return -1;
+                    }
+                    return bytes.length;
+                }
+            };
+        }
+    }
+}
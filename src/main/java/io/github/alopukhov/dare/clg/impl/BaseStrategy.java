@@ -2,16 +2,15 @@ package io.github.alopukhov.dare.clg.impl;
 
 import io.github.alopukhov.dare.clg.ClassLoadingStrategy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.Arrays;
-import java.util.Enumeration;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 
 @RequiredArgsConstructor
+@Slf4j
 enum BaseStrategy implements ClassLoadingStrategy {
     PIS(SingleHelper.P, SingleHelper.I, SingleHelper.S),
     PSI(SingleHelper.P, SingleHelper.S, SingleHelper.I),
@@ -64,12 +63,54 @@ enum BaseStrategy implements ClassLoadingStrategy {
     @Override
     public Enumeration<URL> getResources(String name, LoadingUtil loadingUtil) throws IOException {
         Enumeration<URL> r1 = first.getResources(name, loadingUtil);
-        Enumeration<URL> r2 = second.getResources(name, loadingUtil);
-        Enumeration<URL> r3 = third.getResources(name, loadingUtil);
-        return new CompoundEnumeration<>(Arrays.asList(r1, r2, r3).iterator());
+        Iterator<Enumeration<URL>> stages = new LazyStages(r1, name, loadingUtil, second, third);
+        return new DistinctUrlEnumeration(new CompoundEnumeration<>(stages));
     }
 
-    private enum SingleHelper {
+    static class LazyStages implements Iterator<Enumeration<URL>> {
+        private final Enumeration<URL> firstStage;
+        private final String name;
+        private final LoadingUtil loadingUtil;
+        private final SingleHelper[] remaining;
+        private int next = -1;
+
+        LazyStages(Enumeration<URL> firstStage, String name, LoadingUtil loadingUtil, SingleHelper... remaining) {
+            this.firstStage = firstStage;
+            this.name = name;
+            this.loadingUtil = loadingUtil;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < remaining.length;
+        }
+
+        @Override
+        public Enumeration<URL> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (next++ < 0) {
+                return firstStage;
+            }
+            SingleHelper helper = remaining[next - 1];
+            try {
+                Enumeration<URL> resources = helper.getResources(name, loadingUtil);
+                return resources == null ? Collections.<URL>emptyEnumeration() : resources;
+            } catch (IOException e) {
+                log.warn("Can't lookup resources [{}] in stage {}. Skipping it", name, helper, e);
+                return Collections.emptyEnumeration();
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    enum SingleHelper {
         P {
             @Override
             public Class<?> loadClass(String className, LoadingUtil loadingUtil) {
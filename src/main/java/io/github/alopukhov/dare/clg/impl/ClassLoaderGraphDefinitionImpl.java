@@ -1,10 +1,12 @@
 package io.github.alopukhov.dare.clg.impl;
 
 import io.github.alopukhov.dare.clg.*;
+import io.github.alopukhov.dare.clg.spi.BytecodeTransformer;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 
+import java.nio.file.Path;
 import java.util.*;
 
 import static java.util.Collections.unmodifiableCollection;
@@ -17,6 +19,20 @@ public class ClassLoaderGraphDefinitionImpl implements ClassLoaderGraphDefinitio
     private ClassLoader parentClassLoader = ClassLoaderGraphDefinitionImpl.class.getClassLoader();
     @Getter
     private ClassLoadingStrategy defaultLoadingStrategy = BaseStrategy.PIS;
+    @Getter
+    private Path preloadProfile;
+    @Getter
+    private Path downloadCacheDirectory;
+    @Getter
+    private Path planCacheFile;
+    @Getter
+    private Path transformCacheDirectory;
+    @Getter
+    private boolean jmxEnabled = true;
+    @Getter
+    private boolean platformFastPathEnabled = true;
+    @Getter
+    private boolean lazyMaterialization;
 
     @Override
     public ClassLoaderNodeDefinition getNode(String name) {
@@ -60,6 +76,48 @@ public class ClassLoaderGraphDefinitionImpl implements ClassLoaderGraphDefinitio
         return this;
     }
 
+    @Override
+    public ClassLoaderGraphDefinition setPreloadProfile(Path profile) {
+        this.preloadProfile = profile;
+        return this;
+    }
+
+    @Override
+    public ClassLoaderGraphDefinition setDownloadCacheDirectory(Path directory) {
+        this.downloadCacheDirectory = directory;
+        return this;
+    }
+
+    @Override
+    public ClassLoaderGraphDefinition setPlanCacheFile(Path file) {
+        this.planCacheFile = file;
+        return this;
+    }
+
+    @Override
+    public ClassLoaderGraphDefinition setTransformCacheDirectory(Path directory) {
+        this.transformCacheDirectory = directory;
+        return this;
+    }
+
+    @Override
+    public ClassLoaderGraphDefinition setJmxEnabled(boolean enabled) {
+        this.jmxEnabled = enabled;
+        return this;
+    }
+
+    @Override
+    public ClassLoaderGraphDefinition setPlatformFastPathEnabled(boolean enabled) {
+        this.platformFastPathEnabled = enabled;
+        return this;
+    }
+
+    @Override
+    public ClassLoaderGraphDefinition setLazyMaterialization(boolean lazy) {
+        this.lazyMaterialization = lazy;
+        return this;
+    }
+
     @Override
     public ClassLoaderGraph materialize() throws MaterializationException {
         return materialize(ClassLoaderGraphDefinitionImpl.class.getClassLoader());
@@ -67,25 +125,73 @@ public class ClassLoaderGraphDefinitionImpl implements ClassLoaderGraphDefinitio
 
     @Override
     public ClassLoaderGraph materialize(@NonNull ClassLoader classLoader) throws MaterializationException {
-        return new GraphMaterializer(this, classLoader).materialize();
+        return materialize(classLoader, 1);
+    }
+
+    @Override
+    public ClassLoaderGraph materialize(@NonNull ClassLoader classLoader, int parallelism) throws MaterializationException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        return new GraphMaterializer(this, classLoader, parallelism).materialize();
+    }
+
+    static ClassLoaderGraphDefinitionImpl copyOf(ClassLoaderGraphDefinition source) {
+        ClassLoaderGraphDefinitionImpl copy = new ClassLoaderGraphDefinitionImpl();
+        copy.parentClassLoader = source.getParentClassLoader();
+        copy.defaultLoadingStrategy = source.getDefaultLoadingStrategy();
+        copy.preloadProfile = source.getPreloadProfile();
+        copy.downloadCacheDirectory = source.getDownloadCacheDirectory();
+        copy.planCacheFile = source.getPlanCacheFile();
+        copy.transformCacheDirectory = source.getTransformCacheDirectory();
+        copy.jmxEnabled = source.isJmxEnabled();
+        copy.platformFastPathEnabled = source.isPlatformFastPathEnabled();
+        copy.lazyMaterialization = source.isLazyMaterialization();
+        for (ClassLoaderNodeDefinition node : source.getNodes()) {
+            ClassLoaderNodeDefinitionImpl nodeCopy = (ClassLoaderNodeDefinitionImpl) copy.getOrCreateNode(node.getName());
+            nodeCopy.sources.addAll(node.getSources());
+            nodeCopy.transformers.addAll(node.getTransformers());
+            nodeCopy.loadingStrategy = node.getLoadingStrategy();
+            nodeCopy.sourceEngine = node.getSourceEngine();
+            nodeCopy.lockMode = node.getLockMode();
+            nodeCopy.resourceCacheSize = node.getResourceCacheSize();
+            if (node.getParent() != null) {
+                nodeCopy.parent = copy.getOrCreateNode(node.getParent().getName());
+            }
+            for (ImportDefinition importDef : node.getImportClasses()) {
+                nodeCopy.addImportClasses(importDef.getTarget().getName(), importDef.getPath());
+            }
+            for (ImportDefinition importDef : node.getImportResources()) {
+                nodeCopy.addImportResources(importDef.getTarget().getName(), importDef.getPath());
+            }
+        }
+        return copy;
     }
 
     private ClassLoadingStrategy resolveStrategy(String name) throws Exception {
+        if (RoutingStrategy.isExpression(name)) {
+            return RoutingStrategy.parse(name);
+        }
         ClassLoadingStrategy strategy = BaseStrategy.byName(name.toUpperCase());
         if (strategy == null) {
-            Class<?> clazz = ClassLoaderGraphDefinitionImpl.class.getClassLoader().loadClass(name);
-            if (!ClassLoadingStrategy.class.isAssignableFrom(clazz)) {
-                throw new IllegalArgumentException("Class " + name + " does not implement ClassLoadingStrategy interface");
-            }
-            strategy = ((ClassLoadingStrategy) clazz.getConstructor().newInstance());
+            strategy = instantiate(name, ClassLoadingStrategy.class);
         }
         return strategy;
     }
 
+    private static <T> T instantiate(String className, Class<T> type) throws Exception {
+        Class<?> clazz = ClassLoaderGraphDefinitionImpl.class.getClassLoader().loadClass(className);
+        if (!type.isAssignableFrom(clazz)) {
+            throw new IllegalArgumentException("Class " + className + " does not implement " + type.getSimpleName() + " interface");
+        }
+        return type.cast(clazz.getConstructor().newInstance());
+    }
+
     @RequiredArgsConstructor
     private class ClassLoaderNodeDefinitionImpl implements ClassLoaderNodeDefinition {
         private final List<ImportDefinition> importClasses = new ArrayList<>();
         private final List<ImportDefinition> importResources = new ArrayList<>();
+        private final List<BytecodeTransformer> transformers = new ArrayList<>();
         private final Set<String> sources = new LinkedHashSet<>();
         @Getter
         private final String name;
@@ -93,6 +199,12 @@ public class ClassLoaderGraphDefinitionImpl implements ClassLoaderGraphDefinitio
         private ClassLoaderNodeDefinition parent;
         @Getter
         private ClassLoadingStrategy loadingStrategy;
+        @Getter
+        private SourceEngine sourceEngine;
+        @Getter
+        private LockMode lockMode;
+        @Getter
+        private int resourceCacheSize;
 
         @Override
         public ClassLoaderGraphDefinition getGraph() {
@@ -159,6 +271,68 @@ public class ClassLoaderGraphDefinitionImpl implements ClassLoaderGraphDefinitio
             return this;
         }
 
+        @Override
+        public ClassLoaderNodeDefinition setSourceEngine(String engine) {
+            try {
+                setSourceEngine(engine == null ? null : SourceEngine.byName(engine));
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Can't resolve source engine name '" + engine + "'", e);
+            }
+            return this;
+        }
+
+        @Override
+        public ClassLoaderNodeDefinition setSourceEngine(SourceEngine engine) {
+            this.sourceEngine = engine;
+            return this;
+        }
+
+        @Override
+        public ClassLoaderNodeDefinition setLockMode(String mode) {
+            try {
+                setLockMode(mode == null ? null : LockMode.byName(mode));
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Can't resolve lock mode name '" + mode + "'", e);
+            }
+            return this;
+        }
+
+        @Override
+        public ClassLoaderNodeDefinition setLockMode(LockMode mode) {
+            this.lockMode = mode;
+            return this;
+        }
+
+        @Override
+        public ClassLoaderNodeDefinition setResourceCacheSize(int size) {
+            if (size < 0) {
+                throw new IllegalArgumentException("Resource cache size must not be negative: " + size);
+            }
+            this.resourceCacheSize = size;
+            return this;
+        }
+
+        @Override
+        public ClassLoaderNodeDefinition addTransformer(@NonNull String transformer) {
+            try {
+                addTransformer(instantiate(transformer, BytecodeTransformer.class));
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Can't create transformer '" + transformer + "'", e);
+            }
+            return this;
+        }
+
+        @Override
+        public ClassLoaderNodeDefinition addTransformer(@NonNull BytecodeTransformer transformer) {
+            transformers.add(transformer);
+            return this;
+        }
+
+        @Override
+        public List<BytecodeTransformer> getTransformers() {
+            return unmodifiableList(transformers);
+        }
+
         @Override
         public ClassLoaderNodeDefinition addImportClasses(@NonNull ClassLoaderNodeDefinition from, @NonNull String path) {
             checkSameGraph(from);
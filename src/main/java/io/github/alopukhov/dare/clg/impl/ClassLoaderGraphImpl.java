@@ -1,7 +1,9 @@
 package io.github.alopukhov.dare.clg.impl;
 
 import io.github.alopukhov.dare.clg.ClassLoaderGraph;
+import io.github.alopukhov.dare.clg.ClassLoaderGraphDefinition;
 import io.github.alopukhov.dare.clg.ClassLoaderNode;
+import io.github.alopukhov.dare.clg.MaterializationException;
 import io.github.alopukhov.dare.clg.spi.ResourceHandler;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -15,16 +17,16 @@ import static java.util.Collections.unmodifiableList;
 @Slf4j
 class ClassLoaderGraphImpl implements ClassLoaderGraph {
     @Getter
-    private final ClassLoader parentClassLoader;
-    private final Map<String, ClassLoaderNode> nodes;
-    private final List<ClassLoaderNode> orphans;
-    private final Collection<ResourceHandler> handlers;
+    private volatile ClassLoader parentClassLoader;
+    private volatile Map<String, ClassLoaderNode> nodes;
+    private volatile List<ClassLoaderNode> orphans;
+    private final GraphMaterializer materializer;
 
-    public ClassLoaderGraphImpl(ClassLoader parentClassLoader, Collection<? extends ClassLoaderNode> nodes, Collection<ResourceHandler> handlers) {
+    public ClassLoaderGraphImpl(ClassLoader parentClassLoader, Collection<? extends ClassLoaderNode> nodes, GraphMaterializer materializer) {
         this.parentClassLoader = parentClassLoader;
         this.nodes = toMap(nodes);
         this.orphans = findOrphans(nodes);
-        this.handlers = handlers;
+        this.materializer = materializer;
     }
 
     @Override
@@ -42,10 +44,24 @@ class ClassLoaderGraphImpl implements ClassLoaderGraph {
         return unmodifiableCollection(nodes.values());
     }
 
+    @Override
+    public synchronized Set<String> rematerialize(ClassLoaderGraphDefinition definition) throws MaterializationException {
+        Set<String> changed = materializer.rematerialize(definition);
+        Collection<ClassLoaderNodeImpl> current = materializer.getMaterializedNodes();
+        parentClassLoader = materializer.getParentClassLoader();
+        nodes = toMap(current);
+        orphans = findOrphans(current);
+        return changed;
+    }
+
     @Override
     public synchronized void close() throws IOException {
+        materializer.close();
+    }
+
+    static void close(Collection<? extends ClassLoaderNode> nodes, Collection<ResourceHandler> handlers) throws IOException {
         Exception toThrow = null;
-        for (ClassLoaderNode node : nodes.values()) {
+        for (ClassLoaderNode node : nodes) {
             ClassLoader nodeCl = node.getClassLoader();
             if (nodeCl instanceof AutoCloseable) {
                 try {
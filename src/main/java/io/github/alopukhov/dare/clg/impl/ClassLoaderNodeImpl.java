@@ -5,9 +5,10 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.Collections.unmodifiableCollection;
 
@@ -18,7 +19,7 @@ class ClassLoaderNodeImpl implements ClassLoaderNode {
     private final String name;
     @Getter
     private final ClassLoaderNode parent;
-    private final Map<String, ClassLoaderNode> children = new HashMap<>();
+    private final Map<String, ClassLoaderNode> children = new ConcurrentHashMap<>();
     @Getter
     @NonNull
     private final ClassLoader classLoader;
@@ -30,10 +31,14 @@ class ClassLoaderNodeImpl implements ClassLoaderNode {
 
     @Override
     public Collection<ClassLoaderNode> getChildren() {
-        return unmodifiableCollection(children.values());
+        return unmodifiableCollection(new ArrayList<>(children.values()));
     }
 
     void registerChild(ClassLoaderNode node) {
         children.put(node.getName(), node);
     }
+
+    void unregisterChild(String name) {
+        children.remove(name);
+    }
 }
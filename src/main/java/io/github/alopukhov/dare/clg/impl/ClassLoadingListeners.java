@@ -0,0 +1,67 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.spi.ClassLoadingListener;
+import io.github.alopukhov.dare.clg.spi.ClassLoadingListenerAdapter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+@Slf4j
+final class ClassLoadingListeners implements ClassLoadingListener {
+    static final ClassLoadingListener NOOP = new NoopListener();
+    private final ClassLoadingListener[] listeners;
+
+    private ClassLoadingListeners(List<ClassLoadingListener> listeners) {
+        this.listeners = listeners.toArray(new ClassLoadingListener[0]);
+    }
+
+    static List<ClassLoadingListener> load(ClassLoader classLoader) {
+        List<ClassLoadingListener> listeners = new ArrayList<>();
+        for (ClassLoadingListener listener : ServiceLoader.load(ClassLoadingListener.class, classLoader)) {
+            log.debug("Found class loading listener {} of class {}", listener, listener.getClass());
+            listeners.add(listener);
+        }
+        return listeners;
+    }
+
+    static ClassLoadingListener combine(List<ClassLoadingListener> listeners) {
+        if (listeners.isEmpty()) {
+            return NOOP;
+        }
+        return listeners.size() == 1 ? listeners.get(0) : new ClassLoadingListeners(listeners);
+    }
+
+    @Override
+    public void classDefined(String nodeName, Class<?> definedClass) {
+        for (ClassLoadingListener listener : listeners) {
+            listener.classDefined(nodeName, definedClass);
+        }
+    }
+
+    @Override
+    public void classResolved(String nodeName, String className, LookupStep step, Class<?> resolvedClass) {
+        for (ClassLoadingListener listener : listeners) {
+            listener.classResolved(nodeName, className, step, resolvedClass);
+        }
+    }
+
+    @Override
+    public void classMissed(String nodeName, String className) {
+        for (ClassLoadingListener listener : listeners) {
+            listener.classMissed(nodeName, className);
+        }
+    }
+
+    @Override
+    public void resourceResolved(String nodeName, String resourceName, URL resource) {
+        for (ClassLoadingListener listener : listeners) {
+            listener.resourceResolved(nodeName, resourceName, resource);
+        }
+    }
+
+    private static final class NoopListener extends ClassLoadingListenerAdapter {
+    }
+}
@@ -2,24 +2,52 @@ package io.github.alopukhov.dare.clg.impl;
 
 import io.github.alopukhov.dare.clg.ClassLoadingStrategy;
 import io.github.alopukhov.dare.clg.ClassLoadingStrategy.LoadingUtil;
+import io.github.alopukhov.dare.clg.LockMode;
+import io.github.alopukhov.dare.clg.impl.EntrySource.LoadedEntry;
+import io.github.alopukhov.dare.clg.impl.ImportMatcher.Rule;
+import io.github.alopukhov.dare.clg.impl.LoaderStatistics.Counter;
+import io.github.alopukhov.dare.clg.spi.ClassLoadingListener;
+import io.github.alopukhov.dare.clg.spi.ClassLoadingListener.LookupStep;
+import io.github.alopukhov.dare.clg.spi.GraphEventHook;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.security.CodeSigner;
+import java.security.CodeSource;
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.List;
+import java.util.jar.Manifest;
 
 import static java.util.Collections.emptyEnumeration;
 import static java.util.Collections.emptyList;
 
+@Slf4j
 class ClgClassLoader extends URLClassLoader {
     private static final List<TargetImportItem> EMPTY_IMPORTS = emptyList();
     private final LoadingUtil loadingUtil = new LoadingUtilImpl();
     private final ClassLoadingStrategy loadingStrategy;
-    private final List<TargetImportItem> classImports;
-    private final List<TargetImportItem> resourceImports;
+    private final ImportMatcher<TargetImportItem> classImports;
+    private final ImportMatcher<TargetImportItem> resourceImports;
+    private final EntryIndex entryIndex;
+    private final String nodeName;
+    private final ClassLoadingListener listener;
+    private final NegativeLookupCache negativeLookupCache = new NegativeLookupCache();
+    private final LoaderStatistics statistics = new LoaderStatistics();
+    private volatile ResourceLookupCache resourceLookupCache;
+    private volatile EventHookBinding eventHook;
+    private volatile TransientLockMap transientLocks;
+    private volatile ImportResolutionCache importResolutionCache;
+    private volatile PlatformPackages platformPackages;
+    private volatile TransformerChain transformerChain;
 
     static {
         ClassLoader.registerAsParallelCapable();
@@ -28,33 +56,149 @@ class ClgClassLoader extends URLClassLoader {
     ClgClassLoader(@NonNull URL[] urls, ClassLoader parent,
                    @NonNull ClassLoadingStrategy loadingStrategy,
                    List<TargetImportItem> classImports,
-                   List<TargetImportItem> resourceImports) {
+                   List<TargetImportItem> resourceImports,
+                   EntryIndex entryIndex) {
+        this(urls, parent, loadingStrategy, classImports, resourceImports, entryIndex, null, ClassLoadingListeners.NOOP);
+    }
+
+    ClgClassLoader(@NonNull URL[] urls, ClassLoader parent,
+                   @NonNull ClassLoadingStrategy loadingStrategy,
+                   List<TargetImportItem> classImports,
+                   List<TargetImportItem> resourceImports,
+                   EntryIndex entryIndex,
+                   String nodeName,
+                   @NonNull ClassLoadingListener listener) {
         super(urls, parent);
         this.loadingStrategy = loadingStrategy;
-        this.classImports = classImports == null ? EMPTY_IMPORTS : classImports;
-        this.resourceImports = resourceImports == null ? EMPTY_IMPORTS : resourceImports;
+        this.classImports = ImportMatcher.compile(classImports == null ? EMPTY_IMPORTS : classImports, '.');
+        this.resourceImports = ImportMatcher.compile(resourceImports == null ? EMPTY_IMPORTS : resourceImports, '/');
+        this.entryIndex = entryIndex;
+        this.nodeName = nodeName;
+        this.listener = listener;
     }
 
     @Override
     protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
-        synchronized (getClassLoadingLock(name)) {
-            Class<?> c = findLoadedClass(name);
-            if (c == null) {
+        Class<?> c = tryLoad(name, resolve);
+        if (c == null) {
+            throw new ClassNotFoundException(name);
+        }
+        return c;
+    }
+
+    Class<?> tryLoad(String name, boolean resolve) {
+        long start = System.nanoTime();
+        Class<?> c = null;
+        try {
+            c = doTryLoad(name, resolve);
+            return c;
+        } finally {
+            long duration = System.nanoTime() - start;
+            statistics.recordLoadClass(duration);
+            EventHookBinding hook = eventHook;
+            if (hook != null && duration >= hook.threshold) {
+                hook.hook.slowClassLookup(nodeName, name, stepOf(c), c != null, duration);
+            }
+        }
+    }
+
+    private Class<?> doTryLoad(String name, boolean resolve) {
+        PlatformPackages platform = platformPackages;
+        if (platform != null && platform.contains(name)) {
+            return loadPlatformClass(platform, name, resolve);
+        }
+        TransientLockMap locks = transientLocks;
+        if (locks == null) {
+            synchronized (getClassLoadingLock(name)) {
+                return loadLocked(name, resolve);
+            }
+        }
+        TransientLockMap.NameLock lock = locks.acquire(name);
+        try {
+            synchronized (lock) {
+                return loadLocked(name, resolve);
+            }
+        } finally {
+            locks.release(lock);
+        }
+    }
+
+    private Class<?> loadPlatformClass(PlatformPackages platform, String name, boolean resolve) {
+        Class<?> c = getParent() == null ? platform.load(name) : loadingUtil.findClassInParent(name);
+        if (c == null) {
+            statistics.increment(Counter.CLASS_MISSES);
+            listener.classMissed(nodeName, name);
+            return null;
+        }
+        if (resolve) {
+            resolveClass(c);
+        }
+        return c;
+    }
+
+    private Class<?> loadLocked(String name, boolean resolve) {
+        Class<?> c = findLoadedClass(name);
+        if (c == null) {
+            if (negativeLookupCache.isKnownMiss(name)) {
+                statistics.increment(Counter.NEGATIVE_CACHE_HITS);
+                listener.classMissed(nodeName, name);
+                return null;
+            }
+            int generation = negativeLookupCache.generation();
+            try {
                 c = loadingStrategy.loadClass(name, loadingUtil);
+            } catch (ClassNotFoundException e) {
+                c = null;
             }
             if (c == null) {
-                throw new ClassNotFoundException(name);
-            }
-            if (resolve) {
-                resolveClass(c);
+                statistics.increment(Counter.CLASS_MISSES);
+                listener.classMissed(nodeName, name);
+                negativeLookupCache.recordMiss(name, generation);
+                return null;
             }
-            return c;
+        } else {
+            statistics.increment(Counter.ALREADY_LOADED);
+        }
+        if (resolve) {
+            resolveClass(c);
         }
+        return c;
     }
 
     @Override
     public URL getResource(String name) {
-        return loadingStrategy.getResource(name, loadingUtil);
+        statistics.increment(Counter.RESOURCE_LOOKUPS);
+        EventHookBinding hook = eventHook;
+        long start = hook == null ? 0 : System.nanoTime();
+        URL resource = lookupResource(name);
+        if (resource == null) {
+            statistics.increment(Counter.RESOURCE_MISSES);
+        } else {
+            listener.resourceResolved(nodeName, name, resource);
+        }
+        if (hook != null) {
+            long duration = System.nanoTime() - start;
+            if (duration >= hook.threshold) {
+                hook.hook.slowResourceLookup(nodeName, name, resource != null, duration);
+            }
+        }
+        return resource;
+    }
+
+    private URL lookupResource(String name) {
+        ResourceLookupCache cache = resourceLookupCache;
+        if (cache == null) {
+            return loadingStrategy.getResource(name, loadingUtil);
+        }
+        ResourceLookupCache.Result cached = cache.get(name);
+        if (cached != null) {
+            statistics.increment(Counter.RESOURCE_CACHE_HITS);
+            return cached.getUrl();
+        }
+        int generation = cache.generation();
+        URL resource = loadingStrategy.getResource(name, loadingUtil);
+        cache.put(name, resource, generation);
+        return resource;
     }
 
     @Override
@@ -66,10 +210,220 @@ class ClgClassLoader extends URLClassLoader {
         return resources;
     }
 
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        if (entryIndex == null) {
+            return super.findClass(name);
+        }
+        Class<?> c = findIndexedClass(name);
+        if (c == null) {
+            throw new ClassNotFoundException(name);
+        }
+        return c;
+    }
+
+    @Override
+    public URL findResource(String name) {
+        return entryIndex == null ? super.findResource(name) : entryIndex.findResource(name);
+    }
+
+    @Override
+    public Enumeration<URL> findResources(String name) throws IOException {
+        return entryIndex == null ? super.findResources(name) : entryIndex.findResources(name);
+    }
+
+    @Override
+    public void close() throws IOException {
+        invalidateLookupCaches();
+        log.debug("Closing class loader. Negative lookup cache hits: {}, misses: {}",
+                negativeLookupCache.getHits(), negativeLookupCache.getMisses());
+        ResourceLookupCache resourceCache = resourceLookupCache;
+        if (resourceCache != null) {
+            log.debug("Resource lookup cache hits: {}, misses: {}", resourceCache.getHits(), resourceCache.getMisses());
+        }
+        try {
+            super.close();
+        } finally {
+            if (entryIndex != null) {
+                entryIndex.close();
+            }
+        }
+    }
+
+    void invalidateLookupCaches() {
+        negativeLookupCache.invalidate();
+        ResourceLookupCache resourceCache = resourceLookupCache;
+        if (resourceCache != null) {
+            resourceCache.invalidate();
+        }
+    }
+
+    void enableResourceLookupCache(int maxSize) {
+        resourceLookupCache = maxSize > 0 ? new ResourceLookupCache(maxSize) : null;
+    }
+
+    ResourceLookupCache getResourceLookupCache() {
+        return resourceLookupCache;
+    }
+
+    void setLockMode(LockMode mode) {
+        transientLocks = mode == LockMode.TRANSIENT ? new TransientLockMap() : null;
+    }
+
+    void setImportResolutionCache(ImportResolutionCache cache) {
+        importResolutionCache = cache;
+    }
+
+    void setPlatformPackages(PlatformPackages packages) {
+        platformPackages = packages;
+    }
+
+    void setTransformerChain(TransformerChain transformers) {
+        transformerChain = transformers;
+    }
+
+    TransformerChain getTransformerChain() {
+        return transformerChain;
+    }
+
+    TransientLockMap getTransientLocks() {
+        return transientLocks;
+    }
+
+    void setEventHook(GraphEventHook hook) {
+        eventHook = hook == null ? null : new EventHookBinding(hook, hook.getSlowCallThresholdNanos());
+    }
+
+    private String stepOf(Class<?> c) {
+        if (c == null) {
+            return "miss";
+        }
+        ClassLoader definer = c.getClassLoader();
+        if (definer == this) {
+            return "S";
+        }
+        for (ClassLoader ancestor = getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+            if (ancestor == definer) {
+                return "P";
+            }
+        }
+        return definer == null ? "P" : "I";
+    }
+
+    LoaderStatistics getStatistics() {
+        return statistics;
+    }
+
+    NegativeLookupCache getNegativeLookupCache() {
+        return negativeLookupCache;
+    }
+
+    private Class<?> findIndexedClass(String name) {
+        String path = name.replace('.', '/').concat(".class");
+        EntrySource source = entryIndex.findSource(path);
+        if (source == null) {
+            return null;
+        }
+        try {
+            LoadedEntry entry = source.readEntry(path);
+            if (entry == null) {
+                return null;
+            }
+            String packageName = packageOf(name);
+            if (packageName != null && !isPackageDefined(packageName, source.getUrl())) {
+                defineMissingPackage(packageName, source.getManifest(), source.getUrl());
+            }
+            return defineBytes(name, entry.getBytes(), new CodeSource(source.getUrl(), entry.getCodeSigners()));
+        } catch (IOException e) {
+            log.warn("Can't read class [{}] from source [{}]", name, source, e);
+            return null;
+        }
+    }
+
+    private Class<?> findUrlClass(String name) {
+        String path = name.replace('.', '/').concat(".class");
+        URL url = super.findResource(path);
+        if (url == null) {
+            return null;
+        }
+        try {
+            URLConnection connection = url.openConnection();
+            connection.setUseCaches(false);
+            byte[] bytes;
+            CodeSource codeSource;
+            Manifest manifest = null;
+            try (InputStream in = connection.getInputStream()) {
+                bytes = EntrySource.readFully(in, connection.getContentLength());
+                if (connection instanceof JarURLConnection) {
+                    JarURLConnection jarConnection = (JarURLConnection) connection;
+                    manifest = jarConnection.getManifest();
+                    codeSource = new CodeSource(jarConnection.getJarFileURL(), jarConnection.getJarEntry().getCodeSigners());
+                } else {
+                    String location = url.toString();
+                    codeSource = new CodeSource(location.endsWith(path) ?
+                            new URL(location.substring(0, location.length() - path.length())) : url, (CodeSigner[]) null);
+                }
+            }
+            String packageName = packageOf(name);
+            if (packageName != null && !isPackageDefined(packageName, codeSource.getLocation())) {
+                defineMissingPackage(packageName, manifest, codeSource.getLocation());
+            }
+            return defineBytes(name, bytes, codeSource);
+        } catch (IOException e) {
+            log.warn("Can't read class [{}] from [{}]", name, url, e);
+            return null;
+        }
+    }
+
+    private Class<?> defineBytes(String name, byte[] bytes, CodeSource codeSource) {
+        TransformerChain transformers = transformerChain;
+        if (transformers != null) {
+            bytes = transformers.apply(name, bytes);
+        }
+        return defineClass(name, bytes, 0, bytes.length, codeSource);
+    }
+
+    private static String packageOf(String className) {
+        int lastDot = className.lastIndexOf('.');
+        return lastDot < 0 ? null : className.substring(0, lastDot);
+    }
+
+    private boolean isPackageDefined(String packageName, URL url) {
+        Package pkg = getPackage(packageName);
+        if (pkg == null) {
+            return false;
+        }
+        if (pkg.isSealed() && !pkg.isSealed(url)) {
+            throw new SecurityException("sealing violation: package " + packageName + " is sealed");
+        }
+        return true;
+    }
+
+    private void defineMissingPackage(String packageName, Manifest manifest, URL url) {
+        try {
+            if (manifest != null) {
+                definePackage(packageName, manifest, url);
+            } else {
+                definePackage(packageName, null, null, null, null, null, null, null);
+            }
+        } catch (IllegalArgumentException e) {
+            if (getPackage(packageName) == null) {
+                throw new IllegalStateException("Can't define package " + packageName, e);
+            }
+        }
+    }
+
     private class LoadingUtilImpl implements LoadingUtil {
         @Override
         public Class<?> findClassInParent(String name) {
+            return count(Counter.PARENT_HITS, LookupStep.PARENT, name, loadFromParent(name));
+        }
+
+        private Class<?> loadFromParent(String name) {
             ClassLoader parent = getParent();
+            if (parent instanceof ClgClassLoader) {
+                return ((ClgClassLoader) parent).tryLoad(name, false);
+            }
             try {
                 return parent != null ? parent.loadClass(name) : Class.forName(name, false, null);
             } catch (ClassNotFoundException e) {
@@ -79,26 +433,47 @@ class ClgClassLoader extends URLClassLoader {
 
         @Override
         public Class<?> findClassInSelf(String name) {
-            try {
-                return ClgClassLoader.this.findClass(name);
-            } catch (ClassNotFoundException e) {
-                return null;
+            Class<?> c = defineInSelf(name);
+            if (c != null) {
+                listener.classDefined(nodeName, c);
             }
+            return count(Counter.SELF_HITS, LookupStep.SELF, name, c);
+        }
+
+        private Class<?> defineInSelf(String name) {
+            if (entryIndex != null) {
+                return findIndexedClass(name);
+            }
+            return findUrlClass(name);
         }
 
         @Override
         public Class<?> findClassInImports(String name) {
-            for (TargetImportItem clImport : classImports) {
-                if (clImport.getImportItem().accepts(name)) {
-                    try {
-                        return clImport.getTarget().loadClass(name);
-                    } catch (ClassNotFoundException ignore) {
+            int lastDelimiter = classImports.lastDelimiter(name);
+            for (Rule<TargetImportItem> rule : classImports.candidates(name)) {
+                if (rule.accepts(name.length(), lastDelimiter)) {
+                    Class<?> c = loadFromTarget(rule.getValue().getTarget(), name);
+                    if (c != null) {
+                        return count(Counter.IMPORT_HITS, LookupStep.IMPORTS, name, c);
                     }
                 }
             }
             return null;
         }
 
+        private Class<?> count(Counter counter, LookupStep step, String name, Class<?> c) {
+            if (c != null) {
+                statistics.increment(counter);
+                listener.classResolved(nodeName, name, step, c);
+            }
+            return c;
+        }
+
+        private Class<?> loadFromTarget(ClassLoader target, String name) {
+            ImportResolutionCache cache = importResolutionCache;
+            return cache == null ? ImportResolutionCache.load(target, name) : cache.resolve(target, name);
+        }
+
         @Override
         public URL findResourceInParent(String name) {
             ClassLoader parent = getParent();
@@ -115,9 +490,10 @@ class ClgClassLoader extends URLClassLoader {
 
         @Override
         public URL findResourceInImports(String name) {
-            for (TargetImportItem resourceImport : resourceImports) {
-                if (resourceImport.getImportItem().accepts(name)) {
-                    URL resource = resourceImport.getTarget().getResource(name);
+            int lastDelimiter = resourceImports.lastDelimiter(name);
+            for (Rule<TargetImportItem> rule : resourceImports.candidates(name)) {
+                if (rule.accepts(name.length(), lastDelimiter)) {
+                    URL resource = rule.getValue().getTarget().getResource(name);
                     if (resource != null) {
                         return resource;
                     }
@@ -141,17 +517,51 @@ class ClgClassLoader extends URLClassLoader {
         }
 
         @Override
-        public Enumeration<URL> findResourcesInImports(String name) throws IOException {
-            List<Enumeration<URL>> resources = new ArrayList<>();
-            for (TargetImportItem resourceImport : resourceImports) {
-                if (resourceImport.getImportItem().accepts(name)) {
-                    resources.add(resourceImport.getTarget().getResources(name));
+        public Enumeration<URL> findResourcesInImports(String name) {
+            List<ClassLoader> targets = new ArrayList<>();
+            int lastDelimiter = resourceImports.lastDelimiter(name);
+            for (Rule<TargetImportItem> rule : resourceImports.candidates(name)) {
+                if (rule.accepts(name.length(), lastDelimiter)) {
+                    targets.add(rule.getValue().getTarget());
                 }
             }
-            if (resources.isEmpty()) {
+            if (targets.isEmpty()) {
                 return emptyEnumeration();
             }
-            return new CompoundEnumeration<>(resources.iterator());
+            return new CompoundEnumeration<>(new ImportedResources(name, targets.iterator()));
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class ImportedResources implements Iterator<Enumeration<URL>> {
+        private final String name;
+        private final Iterator<ClassLoader> targets;
+
+        @Override
+        public boolean hasNext() {
+            return targets.hasNext();
         }
+
+        @Override
+        public Enumeration<URL> next() {
+            ClassLoader target = targets.next();
+            try {
+                return target.getResources(name);
+            } catch (IOException e) {
+                log.warn("Can't lookup imported resources [{}] in [{}]. Skipping it", name, target, e);
+                return emptyEnumeration();
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class EventHookBinding {
+        private final GraphEventHook hook;
+        private final long threshold;
     }
 }
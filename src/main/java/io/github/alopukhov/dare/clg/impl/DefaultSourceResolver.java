@@ -3,23 +3,18 @@ package io.github.alopukhov.dare.clg.impl;
 import io.github.alopukhov.dare.clg.spi.SimpleUrlHolder;
 import io.github.alopukhov.dare.clg.spi.SourceResolver;
 import io.github.alopukhov.dare.clg.spi.UrlHolder;
-import lombok.AccessLevel;
-import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Pattern;
 
 @Slf4j
-class DefaultSourceResolver implements SourceResolver {
+public class DefaultSourceResolver implements SourceResolver {
     private static final List<String> SIMPLE_PROTOCOLS = Arrays.asList("http:", "https:", "file:");
     private static final String CLASSPATH_PROTOCOL = "classpath:";
     private static final boolean IS_WINDOWS = System.getProperty("os.name").startsWith("Windows");
@@ -51,7 +46,8 @@ class DefaultSourceResolver implements SourceResolver {
             sourcePath = sourcePath.replace('\\', '/');
         }
         try {
-            int dirPos = sourcePath.lastIndexOf('/');
+            int globPos = GlobWalker.indexOfGlob(sourcePath);
+            int dirPos = sourcePath.lastIndexOf('/', globPos < 0 ? sourcePath.length() : globPos);
             String dir = (dirPos < 0) ? "." : sourcePath.substring(0, dirPos + 1);
             String file = (dirPos < 0) ? sourcePath : sourcePath.substring(dirPos + 1);
             Path dirPath = dir.startsWith("~/") ?
@@ -67,15 +63,12 @@ class DefaultSourceResolver implements SourceResolver {
                         throw new IllegalStateException("Can't append / to url", e);
                     }
                 }
-                return SimpleUrlHolder.create(url);
+                return FileSourceHolder.create(url);
             }
-            if (file.indexOf('*') < 0) {
-                return SimpleUrlHolder.create(asURL(dirPath.resolve(file)));
+            if (globPos < 0) {
+                return FileSourceHolder.create(asURL(dirPath.resolve(file)));
             }
-            Pattern filePattern = getFilenamePattern(file);
-            FilesCollector filesCollector = new FilesCollector(filePattern);
-            Files.walkFileTree(dirPath, filesCollector);
-            return SimpleUrlHolder.create(filesCollector.getResult());
+            return GlobWalker.walk(dirPath, file);
         } catch (InvalidPathException e) {
             log.warn("Invalid filesystem path for source path [{}]", sourcePath, e);
             return null;
@@ -107,7 +100,7 @@ class DefaultSourceResolver implements SourceResolver {
         return null;
     }
 
-    private static Pattern getFilenamePattern(String file) {
+    static Pattern getFilenamePattern(String file) {
         StringBuilder filePatternString = new StringBuilder(file.length() + 10);
         for (String part : file.split("\\*")) {
             if (filePatternString.length() > 0) {
@@ -135,37 +128,4 @@ class DefaultSourceResolver implements SourceResolver {
             throw new IllegalStateException("Can't convert valid Path to URL", e);
         }
     }
-
-    @RequiredArgsConstructor
-    private static class FilesCollector implements FileVisitor<Path> {
-        private final Pattern includePattern;
-        @Getter(AccessLevel.PRIVATE)
-        private final List<URL> result = new ArrayList<>();
-
-        @Override
-        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
-            return FileVisitResult.CONTINUE;
-        }
-
-        @Override
-        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-            if (!attrs.isDirectory() && includePattern.matcher(file.getFileName().toString()).matches()){
-                result.add(asURL(file));
-            }
-            return FileVisitResult.CONTINUE;
-        }
-
-        @Override
-        public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
-            throw exc;
-        }
-
-        @Override
-        public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-            if (exc != null) {
-                throw exc;
-            }
-            return FileVisitResult.CONTINUE;
-        }
-    }
 }
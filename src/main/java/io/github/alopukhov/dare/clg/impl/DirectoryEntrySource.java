@@ -0,0 +1,77 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.jar.Manifest;
+
+class DirectoryEntrySource extends EntrySource {
+    private final Path directory;
+    private final String entryUrlBase;
+
+    DirectoryEntrySource(URL url, Path directory) {
+        super(url);
+        this.directory = directory;
+        this.entryUrlBase = url.toString();
+    }
+
+    @Override
+    Collection<String> listEntries() throws IOException {
+        final List<String> names = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return names;
+        }
+        Files.walkFileTree(directory, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                String name = entryName(dir);
+                names.add(name.isEmpty() ? name : name + '/');
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                names.add(entryName(file));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return names;
+    }
+
+    @Override
+    URL getEntryUrl(String name) {
+        return concatUrl(entryUrlBase, name);
+    }
+
+    @Override
+    LoadedEntry readEntry(String name) throws IOException {
+        Path file = directory.resolve(name);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return new LoadedEntry(readFully(in, (int) Files.size(file)), null);
+        }
+    }
+
+    @Override
+    Manifest getManifest() {
+        return null;
+    }
+
+    private String entryName(Path path) {
+        String name = directory.relativize(path).toString();
+        return path.getFileSystem().getSeparator().equals("/") ? name : name.replace(path.getFileSystem().getSeparator(), "/");
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import lombok.RequiredArgsConstructor;
+
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+@RequiredArgsConstructor
+class DistinctUrlEnumeration implements Enumeration<URL> {
+    private final Enumeration<URL> delegate;
+    private final Set<String> seen = new HashSet<>();
+    private URL next;
+
+    @Override
+    public boolean hasMoreElements() {
+        while (next == null && delegate.hasMoreElements()) {
+            URL candidate = delegate.nextElement();
+            if (candidate != null && seen.add(candidate.toExternalForm())) {
+                next = candidate;
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public URL nextElement() {
+        if (!hasMoreElements()) {
+            throw new NoSuchElementException();
+        }
+        URL result = next;
+        next = null;
+        return result;
+    }
+}
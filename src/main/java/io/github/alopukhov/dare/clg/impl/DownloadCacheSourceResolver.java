@@ -0,0 +1,288 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.spi.ResourceHandler;
+import io.github.alopukhov.dare.clg.spi.SimpleUrlHolder;
+import io.github.alopukhov.dare.clg.spi.SourceResolver;
+import io.github.alopukhov.dare.clg.spi.UrlHolder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+@Slf4j
+class DownloadCacheSourceResolver implements SourceResolver, ResourceHandler {
+    private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+    private static final int READ_TIMEOUT_MILLIS = 60000;
+    private static final String BLOBS = "blobs";
+    private static final String REFS = "refs";
+    private static final String URL_KEY = "url";
+    private static final String BLOB_KEY = "blob";
+    private static final String ETAG_KEY = "etag";
+    private static final String LAST_MODIFIED_KEY = "last-modified";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final long PRUNE_GRACE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private final Path cacheDirectory;
+    private final Set<Path> pendingFiles = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+    private final AtomicInteger downloads = new AtomicInteger();
+    private final AtomicInteger revalidations = new AtomicInteger();
+    private final AtomicInteger offlineHits = new AtomicInteger();
+    private final AtomicInteger prunedBlobs = new AtomicInteger();
+
+    DownloadCacheSourceResolver(Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    @Override
+    public UrlHolder resolveSource(String sourcePath, ClassLoader classLoader) {
+        if (!(sourcePath.startsWith("http:") || sourcePath.startsWith("https:")) || sourcePath.endsWith("/")) {
+            return null;
+        }
+        URL url;
+        try {
+            url = new URL(sourcePath);
+        } catch (MalformedURLException e) {
+            log.debug("Source path [{}] is not a valid url", sourcePath);
+            return null;
+        }
+        Path refFile = cacheDirectory.resolve(REFS).resolve(sha256(sourcePath) + ".properties");
+        Properties ref = readRef(refFile, sourcePath);
+        Path cached = ref == null ? null : cacheDirectory.resolve(BLOBS).resolve(ref.getProperty(BLOB_KEY));
+        if (cached != null && !Files.isRegularFile(cached)) {
+            log.debug("Cached content of [{}] is missing", sourcePath);
+            ref = null;
+            cached = null;
+        }
+        try {
+            Path blob = fetch(url, ref, refFile);
+            return SimpleUrlHolder.create(blob.toUri().toURL());
+        } catch (IOException e) {
+            if (cached == null) {
+                log.warn("Can't download source [{}]", sourcePath, e);
+                return null;
+            }
+            offlineHits.incrementAndGet();
+            log.warn("Can't revalidate source [{}]. Using cached copy [{}]", sourcePath, cached, e);
+            try {
+                return SimpleUrlHolder.create(cached.toUri().toURL());
+            } catch (MalformedURLException malformedURLException) {
+                throw new IllegalStateException("Can't convert valid Path to URL", malformedURLException);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Path file : pendingFiles) {
+            deleteQuietly(file);
+        }
+        pendingFiles.clear();
+        if (downloads.get() > 0) {
+            pruneUnreferencedBlobs();
+        }
+        log.debug("Download cache [{}] downloads: {}, revalidations: {}, offline hits: {}, pruned blobs: {}",
+                cacheDirectory, downloads.get(), revalidations.get(), offlineHits.get(), prunedBlobs.get());
+    }
+
+    int getDownloads() {
+        return downloads.get();
+    }
+
+    int getRevalidations() {
+        return revalidations.get();
+    }
+
+    int getOfflineHits() {
+        return offlineHits.get();
+    }
+
+    int getPrunedBlobs() {
+        return prunedBlobs.get();
+    }
+
+    void pruneUnreferencedBlobs() {
+        Set<String> referenced = new HashSet<>();
+        try (DirectoryStream<Path> refs = Files.newDirectoryStream(cacheDirectory.resolve(REFS), "*.properties")) {
+            for (Path refFile : refs) {
+                Properties ref = new Properties();
+                try (InputStream in = Files.newInputStream(refFile)) {
+                    ref.load(in);
+                }
+                if (ref.getProperty(BLOB_KEY) != null) {
+                    referenced.add(ref.getProperty(BLOB_KEY));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            log.trace("Download cache [{}] has no refs yet", cacheDirectory);
+        } catch (IOException e) {
+            log.debug("Can't read download cache refs in [{}]. Skipping pruning", cacheDirectory, e);
+            return;
+        }
+        long threshold = System.currentTimeMillis() - PRUNE_GRACE_MILLIS;
+        try (DirectoryStream<Path> blobs = Files.newDirectoryStream(cacheDirectory.resolve(BLOBS))) {
+            for (Path blob : blobs) {
+                String name = blob.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX) || referenced.contains(name)
+                        || Files.getLastModifiedTime(blob).toMillis() > threshold) {
+                    continue;
+                }
+                if (Files.deleteIfExists(blob)) {
+                    prunedBlobs.incrementAndGet();
+                    log.debug("Pruned unreferenced blob [{}]", blob);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            log.trace("Download cache [{}] has no blobs yet", cacheDirectory);
+        } catch (IOException e) {
+            log.debug("Can't prune download cache [{}]", cacheDirectory, e);
+        }
+    }
+
+    private Path fetch(URL url, Properties ref, Path refFile) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+            connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+            connection.setUseCaches(false);
+            if (ref != null) {
+                if (ref.getProperty(ETAG_KEY) != null) {
+                    connection.setRequestProperty("If-None-Match", ref.getProperty(ETAG_KEY));
+                }
+                if (ref.getProperty(LAST_MODIFIED_KEY) != null) {
+                    connection.setRequestProperty("If-Modified-Since", ref.getProperty(LAST_MODIFIED_KEY));
+                }
+            }
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && ref != null) {
+                revalidations.incrementAndGet();
+                log.debug("Source [{}] is not modified", url);
+                return cacheDirectory.resolve(BLOBS).resolve(ref.getProperty(BLOB_KEY));
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Unexpected response " + status + " for " + url);
+            }
+            String blobName;
+            try (InputStream in = connection.getInputStream()) {
+                blobName = store(in, extension(url));
+            }
+            Properties updated = new Properties();
+            updated.setProperty(URL_KEY, url.toString());
+            updated.setProperty(BLOB_KEY, blobName);
+            if (connection.getHeaderField("ETag") != null) {
+                updated.setProperty(ETAG_KEY, connection.getHeaderField("ETag"));
+            }
+            if (connection.getHeaderField("Last-Modified") != null) {
+                updated.setProperty(LAST_MODIFIED_KEY, connection.getHeaderField("Last-Modified"));
+            }
+            writeRef(refFile, updated);
+            downloads.incrementAndGet();
+            log.debug("Downloaded [{}] to blob [{}]", url, blobName);
+            return cacheDirectory.resolve(BLOBS).resolve(blobName);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private String store(InputStream in, String extension) throws IOException {
+        Path blobs = Files.createDirectories(cacheDirectory.resolve(BLOBS));
+        Path temp = Files.createTempFile(blobs, "download", TEMP_SUFFIX);
+        pendingFiles.add(temp);
+        try {
+            MessageDigest digest = newDigest();
+            try (InputStream digestIn = new DigestInputStream(in, digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                byte[] buf = new byte[8192];
+                int n;
+                while ((n = digestIn.read(buf)) >= 0) {
+                    out.write(buf, 0, n);
+                }
+            }
+            String blobName = TransformerChain.toHex(digest.digest()) + extension;
+            Path blob = blobs.resolve(blobName);
+            if (!Files.exists(blob)) {
+                FileUtil.moveReplacing(temp, blob);
+            }
+            return blobName;
+        } finally {
+            deleteQuietly(temp);
+            pendingFiles.remove(temp);
+        }
+    }
+
+    private static Properties readRef(Path refFile, String sourcePath) {
+        Properties ref = new Properties();
+        try (InputStream in = Files.newInputStream(refFile)) {
+            ref.load(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.debug("Can't read download cache entry [{}]", refFile, e);
+            return null;
+        }
+        if (!sourcePath.equals(ref.getProperty(URL_KEY)) || ref.getProperty(BLOB_KEY) == null) {
+            return null;
+        }
+        return ref;
+    }
+
+    private void writeRef(Path refFile, Properties ref) throws IOException {
+        Files.createDirectories(refFile.getParent());
+        Path temp = Files.createTempFile(refFile.getParent(), refFile.getFileName().toString(), TEMP_SUFFIX);
+        pendingFiles.add(temp);
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                ref.store(out, null);
+            }
+            FileUtil.moveReplacing(temp, refFile);
+        } finally {
+            deleteQuietly(temp);
+            pendingFiles.remove(temp);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.trace("Can't delete temporary file [{}]", file, e);
+        }
+    }
+
+    private static String extension(URL url) {
+        String path = url.getPath();
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        if (dot <= slash + 1 || path.length() - dot > 8) {
+            return ".jar";
+        }
+        return path.substring(dot);
+    }
+
+    private static String sha256(String value) {
+        return TransformerChain.toHex(newDigest().digest(value.getBytes(UTF_8)));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.SourceEngine;
+import io.github.alopukhov.dare.clg.spi.SimpleUrlHolder;
+import io.github.alopukhov.dare.clg.spi.UrlHolder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.jar.Manifest;
+
+import static java.util.Collections.emptyEnumeration;
+import static java.util.Collections.enumeration;
+import static java.util.Collections.singletonList;
+
+@Slf4j
+class EntryIndex {
+    private static final String FILE_PROTOCOL = "file";
+    private final List<EntrySource> sources;
+    private final Map<String, EntrySource> owners;
+    private final Map<String, List<EntrySource>> sharedEntries;
+
+    private EntryIndex(List<EntrySource> sources, Map<String, EntrySource> owners, Map<String, List<EntrySource>> sharedEntries) {
+        this.sources = sources;
+        this.owners = owners;
+        this.sharedEntries = sharedEntries;
+    }
+
+    static EntryIndex build(URL[] urls, SourceEngine engine) throws IOException {
+        return build(Collections.<UrlHolder>singletonList(SimpleUrlHolder.create(Arrays.asList(urls))), engine);
+    }
+
+    static EntryIndex build(List<UrlHolder> holders, SourceEngine engine) throws IOException {
+        List<EntrySource> sources = new ArrayList<>();
+        for (UrlHolder holder : holders) {
+            for (URL url : holder.getURLs()) {
+                EntrySource source = holder instanceof EntrySourceProvider ?
+                        ((EntrySourceProvider) holder).createEntrySource(url) : createSource(url, engine);
+                if (source == null) {
+                    log.debug("Source [{}] can't be indexed", url);
+                    return null;
+                }
+                sources.add(source);
+            }
+        }
+        Map<String, EntrySource> owners = new HashMap<>();
+        Map<String, List<EntrySource>> sharedEntries = new HashMap<>();
+        for (EntrySource source : sources) {
+            Collection<String> names = source.listEntries();
+            if (names == null) {
+                return null;
+            }
+            for (String name : names) {
+                register(name, source, owners, sharedEntries);
+                if (name.length() > 1 && name.charAt(name.length() - 1) == '/') {
+                    register(name.substring(0, name.length() - 1), source, owners, sharedEntries);
+                }
+            }
+        }
+        log.trace("Indexed {} entries in {} sources", owners.size(), sources.size());
+        return new EntryIndex(sources, owners, sharedEntries);
+    }
+
+    EntrySource findSource(String name) {
+        return owners.get(name);
+    }
+
+    URL findResource(String name) {
+        EntrySource source = owners.get(name);
+        return source == null ? null : source.getEntryUrl(name);
+    }
+
+    Enumeration<URL> findResources(String name) {
+        EntrySource source = owners.get(name);
+        if (source == null) {
+            return emptyEnumeration();
+        }
+        List<EntrySource> all = sharedEntries.get(name);
+        if (all == null) {
+            all = singletonList(source);
+        }
+        List<URL> urls = new ArrayList<>(all.size());
+        for (EntrySource entrySource : all) {
+            URL url = entrySource.getEntryUrl(name);
+            if (url != null) {
+                urls.add(url);
+            }
+        }
+        return enumeration(urls);
+    }
+
+    void close() throws IOException {
+        IOException toThrow = null;
+        for (EntrySource source : sources) {
+            try {
+                source.close();
+            } catch (IOException e) {
+                log.error("Can't close source [{}]", source, e);
+                if (toThrow == null) {
+                    toThrow = e;
+                } else {
+                    toThrow.addSuppressed(e);
+                }
+            }
+        }
+        if (toThrow != null) {
+            throw toThrow;
+        }
+    }
+
+    private static void register(String name, EntrySource source,
+                                 Map<String, EntrySource> owners, Map<String, List<EntrySource>> sharedEntries) {
+        EntrySource owner = owners.get(name);
+        if (owner == null) {
+            owners.put(name, source);
+        } else if (owner != source) {
+            List<EntrySource> all = sharedEntries.get(name);
+            if (all == null) {
+                all = new ArrayList<>(2);
+                all.add(owner);
+                sharedEntries.put(name, all);
+            }
+            if (all.get(all.size() - 1) != source) {
+                all.add(source);
+            }
+        }
+    }
+
+    private static EntrySource createSource(URL url, SourceEngine engine) {
+        if (!FILE_PROTOCOL.equals(url.getProtocol())) {
+            return null;
+        }
+        File file;
+        try {
+            file = Paths.get(url.toURI()).toFile();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+        if (url.getPath().endsWith("/")) {
+            return new DirectoryEntrySource(url, file.toPath());
+        }
+        if (!file.isFile()) {
+            return new MissingEntrySource(url);
+        }
+        return engine == SourceEngine.MEMORY_MAPPED ? new MappedJarEntrySource(url, file) : new JarEntrySource(url, file);
+    }
+
+    private static class MissingEntrySource extends EntrySource {
+        MissingEntrySource(URL url) {
+            super(url);
+        }
+
+        @Override
+        Collection<String> listEntries() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        URL getEntryUrl(String name) {
+            return null;
+        }
+
+        @Override
+        LoadedEntry readEntry(String name) {
+            return null;
+        }
+
+        @Override
+        Manifest getManifest() {
+            return null;
+        }
+    }
+}
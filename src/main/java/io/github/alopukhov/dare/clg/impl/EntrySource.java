@@ -0,0 +1,139 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.security.CodeSigner;
+import java.util.Collection;
+import java.util.jar.Manifest;
+
+@RequiredArgsConstructor
+abstract class EntrySource implements Closeable {
+    @Getter
+    @NonNull
+    private final URL url;
+
+    abstract Collection<String> listEntries() throws IOException;
+
+    abstract URL getEntryUrl(String name);
+
+    abstract LoadedEntry readEntry(String name) throws IOException;
+
+    abstract Manifest getManifest() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" + url + ")";
+    }
+
+    static URL concatUrl(String base, String name) {
+        try {
+            return new URL(base + encodePath(name));
+        } catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+    static String encodePath(String name) {
+        int i = 0;
+        while (i < name.length() && isSafePathChar(name.charAt(i))) {
+            i++;
+        }
+        if (i == name.length()) {
+            return name;
+        }
+        StringBuilder sb = new StringBuilder(name.length() + 16);
+        sb.append(name, 0, i);
+        byte[] bytes;
+        try {
+            bytes = name.substring(i).getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        for (byte b : bytes) {
+            char c = (char) (b & 0xff);
+            if (c < 0x80 && isSafePathChar(c)) {
+                sb.append(c);
+            } else {
+                sb.append('%').append(Character.toUpperCase(Character.forDigit(c >> 4, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(c & 0xf, 16)));
+            }
+        }
+        return sb.toString();
+    }
+
+    static String decodePath(String path) {
+        if (path.indexOf('%') < 0) {
+            return path;
+        }
+        byte[] bytes = new byte[path.length()];
+        int n = 0;
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '%' && i + 2 < path.length() && Character.digit(path.charAt(i + 1), 16) >= 0
+                    && Character.digit(path.charAt(i + 2), 16) >= 0) {
+                bytes[n++] = (byte) (Character.digit(path.charAt(i + 1), 16) << 4 | Character.digit(path.charAt(i + 2), 16));
+                i += 2;
+            } else if (c < 0x80) {
+                bytes[n++] = (byte) c;
+            } else {
+                return path;
+            }
+        }
+        try {
+            return new String(bytes, 0, n, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static byte[] readFully(InputStream in, int sizeHint) throws IOException {
+        byte[] buf = new byte[sizeHint > 0 ? sizeHint : 8192];
+        int pos = 0;
+        for (;;) {
+            int n = in.read(buf, pos, buf.length - pos);
+            if (n < 0) {
+                break;
+            }
+            pos += n;
+            if (pos == buf.length) {
+                int next = in.read();
+                if (next < 0) {
+                    return buf;
+                }
+                byte[] grown = new byte[buf.length * 2];
+                System.arraycopy(buf, 0, grown, 0, pos);
+                buf = grown;
+                buf[pos++] = (byte) next;
+            }
+        }
+        if (pos == buf.length) {
+            return buf;
+        }
+        byte[] result = new byte[pos];
+        System.arraycopy(buf, 0, result, 0, pos);
+        return result;
+    }
+
+    private static boolean isSafePathChar(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || "/-_.!~*'()$&+,;=:@".indexOf(c) >= 0;
+    }
+
+    @RequiredArgsConstructor
+    @Getter
+    static class LoadedEntry {
+        private final byte[] bytes;
+        private final CodeSigner[] codeSigners;
+    }
+}
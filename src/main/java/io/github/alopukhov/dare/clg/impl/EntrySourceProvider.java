@@ -0,0 +1,7 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import java.net.URL;
+
+interface EntrySourceProvider {
+    EntrySource createEntrySource(URL url);
+}
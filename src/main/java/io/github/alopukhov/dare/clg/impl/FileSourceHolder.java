@@ -0,0 +1,34 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.spi.UrlHolder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@ToString
+class FileSourceHolder implements UrlHolder {
+    private final List<URL> urls;
+    @Getter
+    private final Map<String, Long> watchedDirectories;
+
+    FileSourceHolder(Collection<URL> urls, Map<String, Long> watchedDirectories) {
+        this.urls = new ArrayList<>(urls);
+        this.watchedDirectories = new LinkedHashMap<>(watchedDirectories);
+    }
+
+    static FileSourceHolder create(URL url) {
+        return new FileSourceHolder(Collections.singletonList(url), Collections.<String, Long>emptyMap());
+    }
+
+    @Override
+    public Collection<URL> getURLs() {
+        return urls;
+    }
+}
@@ -0,0 +1,193 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.regex.Pattern;
+
+class GlobWalker {
+    private static final String RECURSIVE = "**";
+    private static final String GLOB_CHARS = "*?[";
+    private static final String CLASS_ESCAPED_CHARS = "\\[]&^";
+    private final List<Segment> segments;
+    private final Set<URL> result = new LinkedHashSet<>();
+    private final Map<String, Long> watchedDirectories = new LinkedHashMap<>();
+
+    private GlobWalker(List<Segment> segments) {
+        this.segments = segments;
+    }
+
+    static int indexOfGlob(String path) {
+        for (int i = 0; i < path.length(); i++) {
+            if (GLOB_CHARS.indexOf(path.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static FileSourceHolder walk(Path base, String pattern) throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        for (String part : pattern.split("/")) {
+            if (!part.isEmpty()) {
+                segments.add(Segment.compile(part));
+            }
+        }
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("Empty glob pattern");
+        }
+        GlobWalker walker = new GlobWalker(segments);
+        walker.walk(base, 0);
+        return new FileSourceHolder(walker.result, walker.watchedDirectories);
+    }
+
+    private void walk(Path dir, int index) throws IOException {
+        Segment segment = segments.get(index);
+        boolean last = index == segments.size() - 1;
+        if (segment.literal != null) {
+            Path child = dir.resolve(segment.literal);
+            if (last ? Files.isRegularFile(child) : Files.isDirectory(child)) {
+                visit(child, index, last);
+            } else {
+                watch(dir);
+            }
+        } else if (segment.pattern == null) {
+            if (last) {
+                walkAll(dir);
+                return;
+            }
+            walk(dir, index + 1);
+            for (Path child : list(dir, null)) {
+                if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                    walk(child, index);
+                }
+            }
+        } else {
+            for (Path child : list(dir, segment.pattern)) {
+                if (last ? Files.isRegularFile(child) : Files.isDirectory(child)) {
+                    visit(child, index, last);
+                }
+            }
+        }
+    }
+
+    private void walkAll(Path dir) throws IOException {
+        for (Path child : list(dir, null)) {
+            if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                walkAll(child);
+            } else if (Files.isRegularFile(child)) {
+                result.add(asUrl(child));
+            }
+        }
+    }
+
+    private void visit(Path path, int index, boolean last) throws IOException {
+        if (last) {
+            result.add(asUrl(path));
+        } else {
+            walk(path, index + 1);
+        }
+    }
+
+    private List<Path> list(Path dir, final Pattern pattern) throws IOException {
+        watch(dir);
+        List<Path> children = new ArrayList<>();
+        DirectoryStream.Filter<Path> filter = new DirectoryStream.Filter<Path>() {
+            @Override
+            public boolean accept(Path entry) {
+                return pattern == null || pattern.matcher(entry.getFileName().toString()).matches();
+            }
+        };
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, filter)) {
+            for (Path child : stream) {
+                children.add(child);
+            }
+        }
+        Collections.sort(children);
+        return children;
+    }
+
+    private void watch(Path dir) throws IOException {
+        String key = dir.toAbsolutePath().toString();
+        if (!watchedDirectories.containsKey(key)) {
+            watchedDirectories.put(key, Files.getLastModifiedTime(dir).toMillis());
+        }
+    }
+
+    private static URL asUrl(Path path) {
+        try {
+            return path.toUri().toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException("Can't convert valid Path to URL", e);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Segment {
+        private final String literal;
+        private final Pattern pattern;
+
+        static Segment compile(String glob) {
+            if (RECURSIVE.equals(glob)) {
+                return new Segment(null, null);
+            }
+            if (indexOfGlob(glob) < 0) {
+                return new Segment(glob, null);
+            }
+            StringBuilder regex = new StringBuilder(glob.length() + 16);
+            StringBuilder literal = new StringBuilder();
+            for (int i = 0; i < glob.length(); i++) {
+                char c = glob.charAt(i);
+                int classEnd = c == '[' ? glob.indexOf(']', i + (isNegation(glob, i + 1) ? 3 : 2)) : -1;
+                if (c == '*' || c == '?' || classEnd > 0) {
+                    if (literal.length() > 0) {
+                        regex.append(Pattern.quote(literal.toString()));
+                        literal.setLength(0);
+                    }
+                }
+                if (c == '*') {
+                    regex.append(".*");
+                } else if (c == '?') {
+                    regex.append('.');
+                } else if (classEnd > 0) {
+                    appendClass(regex, glob.substring(i + 1, classEnd));
+                    i = classEnd;
+                } else {
+                    literal.append(c);
+                }
+            }
+            if (literal.length() > 0) {
+                regex.append(Pattern.quote(literal.toString()));
+            }
+            return new Segment(null, Pattern.compile(regex.toString()));
+        }
+
+        private static boolean isNegation(String glob, int i) {
+            return i < glob.length() && (glob.charAt(i) == '!' || glob.charAt(i) == '^');
+        }
+
+        private static void appendClass(StringBuilder regex, String content) {
+            regex.append('[');
+            int start = 0;
+            if (isNegation(content, 0)) {
+                regex.append('^');
+                start = 1;
+            }
+            for (int i = start; i < content.length(); i++) {
+                char c = content.charAt(i);
+                if (CLASS_ESCAPED_CHARS.indexOf(c) >= 0) {
+                    regex.append('\\');
+                }
+                regex.append(c);
+            }
+            regex.append(']');
+        }
+    }
+}
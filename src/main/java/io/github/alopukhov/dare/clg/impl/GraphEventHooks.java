@@ -0,0 +1,94 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.spi.GraphEventHook;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+@Slf4j
+@RequiredArgsConstructor
+class GraphEventHooks implements GraphEventHook {
+    private final List<GraphEventHook> hooks;
+
+    static GraphEventHook load(ClassLoader classLoader) {
+        List<GraphEventHook> hooks = new ArrayList<>();
+        for (GraphEventHook hook : ServiceLoader.load(GraphEventHook.class, classLoader)) {
+            log.debug("Found graph event hook {} of class {}", hook, hook.getClass());
+            hooks.add(hook);
+        }
+        if (hooks.isEmpty()) {
+            return null;
+        }
+        return hooks.size() == 1 ? hooks.get(0) : new GraphEventHooks(hooks);
+    }
+
+    static Span startPhase(GraphEventHook hook, String phase) {
+        return hook == null ? null : hook.startPhase(phase);
+    }
+
+    static void end(Span span, String outcome) {
+        if (span != null) {
+            span.end(outcome);
+        }
+    }
+
+    @Override
+    public Span startPhase(String phase) {
+        List<Span> spans = new ArrayList<>(hooks.size());
+        for (GraphEventHook hook : hooks) {
+            spans.add(hook.startPhase(phase));
+        }
+        return new CompositeSpan(spans);
+    }
+
+    @Override
+    public Span startSourceResolution(String nodeName, String source) {
+        List<Span> spans = new ArrayList<>(hooks.size());
+        for (GraphEventHook hook : hooks) {
+            spans.add(hook.startSourceResolution(nodeName, source));
+        }
+        return new CompositeSpan(spans);
+    }
+
+    @Override
+    public long getSlowCallThresholdNanos() {
+        long threshold = Long.MAX_VALUE;
+        for (GraphEventHook hook : hooks) {
+            threshold = Math.min(threshold, hook.getSlowCallThresholdNanos());
+        }
+        return threshold;
+    }
+
+    @Override
+    public void slowClassLookup(String nodeName, String className, String step, boolean found, long durationNanos) {
+        for (GraphEventHook hook : hooks) {
+            if (durationNanos >= hook.getSlowCallThresholdNanos()) {
+                hook.slowClassLookup(nodeName, className, step, found, durationNanos);
+            }
+        }
+    }
+
+    @Override
+    public void slowResourceLookup(String nodeName, String resourceName, boolean found, long durationNanos) {
+        for (GraphEventHook hook : hooks) {
+            if (durationNanos >= hook.getSlowCallThresholdNanos()) {
+                hook.slowResourceLookup(nodeName, resourceName, found, durationNanos);
+            }
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class CompositeSpan implements Span {
+        private final List<Span> spans;
+
+        @Override
+        public void end(String outcome) {
+            for (Span span : spans) {
+                GraphEventHooks.end(span, outcome);
+            }
+        }
+    }
+}
@@ -2,62 +2,107 @@ package io.github.alopukhov.dare.clg.impl;
 
 import io.github.alopukhov.dare.clg.*;
 import io.github.alopukhov.dare.clg.impl.validation.NoCycles;
+import io.github.alopukhov.dare.clg.spi.ClassLoadingListener;
+import io.github.alopukhov.dare.clg.spi.GraphEventHook;
+import io.github.alopukhov.dare.clg.spi.GraphEventHook.Span;
 import io.github.alopukhov.dare.clg.spi.ResourceHandler;
 import io.github.alopukhov.dare.clg.spi.SourceResolver;
 import io.github.alopukhov.dare.clg.spi.UrlHolder;
-import lombok.RequiredArgsConstructor;
+import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static io.github.alopukhov.dare.clg.impl.GraphEventHooks.end;
+import static io.github.alopukhov.dare.clg.impl.GraphEventHooks.startPhase;
 import static io.github.alopukhov.dare.clg.impl.ImportItem.createClassImport;
 import static io.github.alopukhov.dare.clg.impl.ImportItem.createResourceImport;
 import static java.util.Collections.reverse;
 
-@RequiredArgsConstructor
 @Slf4j
-class GraphMaterializer {
-    private final ClassLoaderGraphDefinition graphDefinition;
+class GraphMaterializer implements TargetImportItem.NodeLoaders {
+    private static final SourceEngine DEFAULT_SOURCE_ENGINE = SourceEngine.JAR_FILE;
+    private static final long SOURCE_RESOLVER_KEEP_ALIVE_SECONDS = 30;
+    private ClassLoaderGraphDefinition graphDefinition;
     private final ClassLoader classLoader;
+    private final int parallelism;
     private Map<String, ClassLoaderNodeImpl> nodes;
+    private Map<String, List<UrlHolder>> resolvedSources;
+    private Map<String, List<ResourceHandler>> nodeHandlers = new HashMap<>();
+    private Map<String, NodeSnapshot> snapshots = new HashMap<>();
+    private final List<ClassLoaderNodeImpl> createdNodes = new ArrayList<>();
     private Map<String, List<TargetImportItem>> allImports;
     private List<SourceResolver> resolvers;
     private final List<ResourceHandler> resourceHandlers = new ArrayList<>();
+    private GraphEventHook eventHook;
+    private ClassLoadingListener listener;
+    private PreloadProfile preloadProfile;
+    private ImportResolutionCache importResolutionCache;
+    private PlatformPackages platformPackages;
+    private PlanCache planCache;
+    private ThreadPoolExecutor sourceExecutor;
+    private JmxRegistration jmxRegistration;
+    private boolean lazy;
+    private boolean closed;
     private boolean materialized = false;
 
+    GraphMaterializer(ClassLoaderGraphDefinition graphDefinition, ClassLoader classLoader, int parallelism) {
+        this.graphDefinition = ClassLoaderGraphDefinitionImpl.copyOf(graphDefinition);
+        this.classLoader = classLoader;
+        this.parallelism = parallelism;
+    }
 
     public ClassLoaderGraph materialize() throws MaterializationException {
         if (materialized) {
             throw new IllegalStateException("Already called materialize");
         }
         materialized = true;
+        Span phase = null;
         try {
             nodes = new HashMap<>(graphDefinition.getNodes().size());
             allImports = new HashMap<>(graphDefinition.getNodes().size());
             log.debug("Materializing class loader graph...");
-            validateGraph();
-            resolvers = getResolvers();
+            eventHook = GraphEventHooks.load(classLoader);
+            phase = startPhase(eventHook, "validate");
+            validateGraph(graphDefinition);
+            end(phase, "ok");
+            phase = startPhase(eventHook, "resolvers");
+            Path planFile = graphDefinition.getPlanCacheFile();
+            planCache = planFile == null ? null : PlanCache.open(planFile, classLoader);
+            if (planCache == null) {
+                resolvers = getResolvers();
+            }
+            listener = createListener();
+            importResolutionCache = new ImportResolutionCache();
+            registerPossibleHandler(importResolutionCache);
+            platformPackages = graphDefinition.isPlatformFastPathEnabled() ? PlatformPackages.get() : null;
+            end(phase, "ok");
+            phase = null;
+            lazy = graphDefinition.isLazyMaterialization();
+            if (lazy) {
+                return createLazyGraph();
+            }
             Collection<ClassLoaderNodeImpl> nodes = createNodes();
-            List<ResourceHandler> reversedHandlers = new ArrayList<>(resourceHandlers);
-            reverse(reversedHandlers);
-            return new ClassLoaderGraphImpl(graphDefinition.getParentClassLoader(), nodes, reversedHandlers);
+            return new ClassLoaderGraphImpl(graphDefinition.getParentClassLoader(), nodes, this);
         } catch (Exception e) {
+            end(phase, "failed");
             log.error("Can't materialize graph. Closing resource handlers");
-            for (ResourceHandler handler : resourceHandlers) {
-                try {
-                    handler.close();
-                } catch (Exception closeException) {
-                    log.error("Can't close resource handler {}", handler, e);
-                    e.addSuppressed(closeException);
-                }
+            for (List<ResourceHandler> handlers : nodeHandlers.values()) {
+                closeHandlers(handlers, e);
             }
+            closeHandlers(resourceHandlers, e);
+            shutdownSourceExecutor();
             throw e;
         }
     }
 
-    private void validateGraph() throws MaterializationException {
+    private void validateGraph(ClassLoaderGraphDefinition graphDefinition) throws MaterializationException {
         log.debug("Validating graph definition...");
         ValidationResult validationResult = new NoCycles().validate(graphDefinition);
         if (!validationResult.isSuccessful()) {
@@ -75,16 +120,304 @@ class GraphMaterializer {
             registerPossibleHandler(resolver);
             resolvers.add(resolver);
         }
+        NestedJarSourceResolver nestedJarResolver = new NestedJarSourceResolver();
+        registerPossibleHandler(nestedJarResolver);
+        resolvers.add(nestedJarResolver);
+        Path downloadCache = graphDefinition.getDownloadCacheDirectory();
+        if (downloadCache != null) {
+            DownloadCacheSourceResolver downloadResolver = new DownloadCacheSourceResolver(downloadCache);
+            registerPossibleHandler(downloadResolver);
+            resolvers.add(downloadResolver);
+        }
         resolvers.add(new DefaultSourceResolver());
-        log.debug("Got {} new resolvers in total including default one.", resolvers.size());
+        log.debug("Got {} new resolvers in total including default ones.", resolvers.size());
         return resolvers;
     }
 
-    private Collection<ClassLoaderNodeImpl> createNodes() throws MaterializationException {
+    private ClassLoaderGraph createLazyGraph() {
+        resolvedSources = new HashMap<>();
+        if (graphDefinition.isJmxEnabled()) {
+            jmxRegistration = new JmxRegistration();
+            registerPossibleHandler(jmxRegistration);
+        }
+        if (preloadProfile != null) {
+            preloadProfile.start(new LazyLoaders());
+        }
+        log.debug("Nodes of class loader graph will be materialized on first use");
+        return new LazyClassLoaderGraph(this);
+    }
+
+    synchronized ClassLoader getParentClassLoader() {
+        return graphDefinition.getParentClassLoader();
+    }
+
+    synchronized Collection<ClassLoaderNodeImpl> getMaterializedNodes() {
+        return new ArrayList<>(nodes.values());
+    }
+
+    synchronized List<String> getDefinedNodeNames(boolean orphansOnly) {
+        List<String> names = new ArrayList<>();
         for (ClassLoaderNodeDefinition nodeDef : graphDefinition.getNodes()) {
-            getOrCreateNode(nodeDef);
+            if (!orphansOnly || nodeDef.getParent() == null) {
+                names.add(nodeDef.getName());
+            }
+        }
+        return names;
+    }
+
+    synchronized ClassLoaderNodeImpl getNode(String name) throws MaterializationException {
+        checkOpen();
+        ClassLoaderNodeImpl node = nodes.get(name);
+        if (node == null) {
+            ClassLoaderNodeDefinition nodeDef = graphDefinition.getNode(name);
+            if (nodeDef == null) {
+                return null;
+            }
+            Span phase = startPhase(eventHook, "node:" + name);
+            try {
+                node = getOrCreateNode(nodeDef);
+                end(phase, "ok");
+            } catch (MaterializationException | RuntimeException e) {
+                end(phase, "failed");
+                throw e;
+            } finally {
+                registerMBeans(drainCreatedNodes());
+            }
+        }
+        return node;
+    }
+
+    @Override
+    public ClassLoader getClassLoader(String nodeName) {
+        try {
+            ClassLoaderNodeImpl node = getNode(nodeName);
+            if (node == null) {
+                throw new IllegalStateException("Node [" + nodeName + "] is not defined");
+            }
+            return node.getClassLoader();
+        } catch (MaterializationException e) {
+            throw new IllegalStateException("Can't materialize node [" + nodeName + "]", e);
+        }
+    }
+
+    synchronized Set<String> rematerialize(@NonNull ClassLoaderGraphDefinition updated) throws MaterializationException {
+        checkOpen();
+        Span phase = startPhase(eventHook, "rematerialize");
+        try {
+            Set<String> changed = rebuildChangedNodes(ClassLoaderGraphDefinitionImpl.copyOf(updated));
+            end(phase, "ok");
+            return changed;
+        } catch (MaterializationException | RuntimeException e) {
+            end(phase, "failed");
+            throw e;
+        }
+    }
+
+    synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        shutdownSourceExecutor();
+        if (planCache != null) {
+            planCache.save();
+        }
+        List<ResourceHandler> handlers = new ArrayList<>();
+        for (List<ResourceHandler> node : nodeHandlers.values()) {
+            handlers.addAll(node);
+        }
+        handlers.addAll(reversedHandlers());
+        ClassLoaderGraphImpl.close(new ArrayList<>(nodes.values()), handlers);
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Class loader graph is closed");
+        }
+    }
+
+    private Set<String> rebuildChangedNodes(ClassLoaderGraphDefinition updated) throws MaterializationException {
+        validateGraph(updated);
+        List<ClassLoaderNodeDefinition> candidates = new ArrayList<>();
+        for (String name : nodes.keySet()) {
+            ClassLoaderNodeDefinition nodeDef = updated.getNode(name);
+            if (nodeDef != null) {
+                candidates.add(nodeDef);
+            }
+        }
+        Map<String, List<ResourceHandler>> candidateHandlers = new HashMap<>();
+        Map<String, List<UrlHolder>> candidateSources;
+        try {
+            candidateSources = resolveAllSources(candidates, candidateHandlers);
+        } catch (MaterializationException e) {
+            for (List<ResourceHandler> handlers : candidateHandlers.values()) {
+                closeHandlers(handlers, e);
+            }
+            throw e;
+        }
+        Set<String> affected = findAffected(updated, candidateSources);
+        Checkpoint checkpoint = new Checkpoint();
+        graphDefinition = updated;
+        nodes = new HashMap<>(nodes);
+        nodes.keySet().removeAll(affected);
+        nodeHandlers = new HashMap<>(nodeHandlers);
+        nodeHandlers.keySet().removeAll(affected);
+        snapshots = new HashMap<>(snapshots);
+        snapshots.keySet().removeAll(affected);
+        resolvedSources = new HashMap<>();
+        allImports = new HashMap<>();
+        for (Entry<String, List<UrlHolder>> e : candidateSources.entrySet()) {
+            List<ResourceHandler> handlers = candidateHandlers.get(e.getKey());
+            if (affected.contains(e.getKey())) {
+                resolvedSources.put(e.getKey(), e.getValue());
+                if (handlers != null) {
+                    nodeHandlers.put(e.getKey(), handlers);
+                }
+            } else if (handlers != null) {
+                closeHandlers(handlers, null);
+            }
+        }
+        createdNodes.clear();
+        try {
+            if (!lazy) {
+                for (ClassLoaderNodeDefinition nodeDef : updated.getNodes()) {
+                    getOrCreateNode(nodeDef);
+                }
+                initImports(createdNodes);
+            }
+        } catch (MaterializationException | RuntimeException e) {
+            log.error("Can't rematerialize graph. Keeping previous nodes");
+            checkpoint.restore(e);
+            throw e;
+        }
+        List<ClassLoaderNodeImpl> created = drainCreatedNodes();
+        for (String name : affected) {
+            retire(checkpoint.nodes.get(name), checkpoint.nodeHandlers.get(name));
+        }
+        importResolutionCache.invalidate();
+        registerMBeans(created);
+        Set<String> changed = new TreeSet<>(affected);
+        for (ClassLoaderNodeImpl node : created) {
+            changed.add(node.getName());
+        }
+        log.info("Rematerialized nodes {}", changed);
+        return changed;
+    }
+
+    private Set<String> findAffected(ClassLoaderGraphDefinition updated, Map<String, List<UrlHolder>> sources) {
+        boolean parentChanged = updated.getParentClassLoader() != graphDefinition.getParentClassLoader();
+        Set<String> affected = new HashSet<>();
+        for (String name : nodes.keySet()) {
+            ClassLoaderNodeDefinition nodeDef = updated.getNode(name);
+            if (nodeDef == null || parentChanged && nodeDef.getParent() == null) {
+                affected.add(name);
+                continue;
+            }
+            NodeSnapshot snapshot = NodeSnapshot.of(nodeDef, loadingStrategy(updated, nodeDef), toUrls(nodeDef, sources.get(name)));
+            if (!snapshot.equals(snapshots.get(name))) {
+                log.debug("Node [{}] changed: {} -> {}", name, snapshots.get(name), snapshot);
+                affected.add(name);
+            }
+        }
+        boolean grown = !affected.isEmpty();
+        while (grown) {
+            grown = false;
+            for (String name : nodes.keySet()) {
+                if (!affected.contains(name) && dependsOnAny(updated.getNode(name), affected)) {
+                    affected.add(name);
+                    grown = true;
+                }
+            }
+        }
+        return affected;
+    }
+
+    private static boolean dependsOnAny(ClassLoaderNodeDefinition nodeDef, Set<String> names) {
+        if (nodeDef.getParent() != null && names.contains(nodeDef.getParent().getName())) {
+            return true;
+        }
+        for (ImportDefinition importDef : nodeDef.getImportClasses()) {
+            if (names.contains(importDef.getTarget().getName())) {
+                return true;
+            }
+        }
+        for (ImportDefinition importDef : nodeDef.getImportResources()) {
+            if (names.contains(importDef.getTarget().getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void retire(ClassLoaderNodeImpl node, List<ResourceHandler> handlers) {
+        ClassLoaderNodeImpl parent = (ClassLoaderNodeImpl) node.getParent();
+        if (parent != null && parent.getChild(node.getName()) == node) {
+            parent.unregisterChild(node.getName());
+        }
+        if (jmxRegistration != null) {
+            jmxRegistration.unregister(node.getName());
+        }
+        try {
+            ClassLoaderGraphImpl.close(Collections.singletonList(node),
+                    handlers == null ? Collections.<ResourceHandler>emptyList() : handlers);
+            log.debug("Closed previous class loader of node [{}]", node.getName());
+        } catch (IOException e) {
+            log.warn("Can't release resources of previous class loader of node [{}]", node.getName(), e);
+        }
+    }
+
+    private List<ClassLoaderNodeImpl> drainCreatedNodes() {
+        List<ClassLoaderNodeImpl> drained = new ArrayList<>(createdNodes);
+        createdNodes.clear();
+        return drained;
+    }
+
+    private static void closeHandlers(Collection<ResourceHandler> handlers, Exception failure) {
+        for (ResourceHandler handler : handlers) {
+            try {
+                handler.close();
+            } catch (Exception closeException) {
+                log.error("Can't close resource handler {}", handler, closeException);
+                if (failure != null) {
+                    failure.addSuppressed(closeException);
+                }
+            }
+        }
+    }
+
+    private List<ResourceHandler> reversedHandlers() {
+        List<ResourceHandler> reversedHandlers = new ArrayList<>(resourceHandlers);
+        reverse(reversedHandlers);
+        return reversedHandlers;
+    }
+
+    private Collection<ClassLoaderNodeImpl> createNodes() throws MaterializationException {
+        Span phase = startPhase(eventHook, "sources");
+        try {
+            resolvedSources = resolveAllSources(graphDefinition.getNodes(), nodeHandlers);
+            if (planCache != null) {
+                planCache.save();
+            }
+            end(phase, "ok");
+            phase = startPhase(eventHook, "nodes");
+            for (ClassLoaderNodeDefinition nodeDef : graphDefinition.getNodes()) {
+                getOrCreateNode(nodeDef);
+            }
+            end(phase, "ok");
+            createdNodes.clear();
+            phase = startPhase(eventHook, "imports");
+            initImports(nodes.values());
+            end(phase, "ok");
+            phase = startPhase(eventHook, "preload");
+            initPreloadProfile();
+            end(phase, "ok");
+            phase = startPhase(eventHook, "jmx");
+            registerMBeans();
+            end(phase, "ok");
+        } catch (MaterializationException | RuntimeException e) {
+            end(phase, "failed");
+            throw e;
         }
-        initImports();
         return nodes.values();
     }
 
@@ -96,21 +429,44 @@ class GraphMaterializer {
         if (node == null) {
             ClassLoaderNodeImpl parent = getOrCreateNode(nodeDef.getParent());
             ClassLoader parentCl = parent == null ? graphDefinition.getParentClassLoader() : parent.getClassLoader();
-            URL[] sources = resolveSources(nodeDef);
-            ClassLoadingStrategy loadingStrategy = nodeDef.getLoadingStrategy() == null ?
-                    graphDefinition.getDefaultLoadingStrategy() : nodeDef.getLoadingStrategy();
+            List<UrlHolder> holders = resolvedSources.get(nodeDef.getName());
+            if (holders == null) {
+                holders = resolveAllSources(Collections.singleton(nodeDef), nodeHandlers).get(nodeDef.getName());
+                resolvedSources.put(nodeDef.getName(), holders);
+            }
+            URL[] sources = toUrls(nodeDef, holders);
+            ClassLoadingStrategy loadingStrategy = loadingStrategy(graphDefinition, nodeDef);
             List<TargetImportItem> classImports = classImportsWithoutClassLoader(nodeDef);
             List<TargetImportItem> resourceImports = resourceImportsWithoutClassLoader(nodeDef);
-            ClgClassLoader cl = new ClgClassLoader(sources, parentCl, loadingStrategy, classImports, resourceImports);
+            EntryIndex entryIndex = buildEntryIndex(nodeDef, holders);
+            TransformerChain transformers = createTransformerChain(nodeDef, entryIndex);
+            ClgClassLoader cl = new ClgClassLoader(sources, parentCl, loadingStrategy, classImports, resourceImports,
+                    entryIndex, nodeDef.getName(), listener);
+            cl.enableResourceLookupCache(nodeDef.getResourceCacheSize());
+            cl.setLockMode(nodeDef.getLockMode());
+            cl.setImportResolutionCache(importResolutionCache);
+            cl.setPlatformPackages(platformPackages);
+            cl.setTransformerChain(transformers);
+            if (eventHook != null) {
+                cl.setEventHook(eventHook);
+            }
             node = new ClassLoaderNodeImpl(nodeDef.getName(), parent, cl);
             if (parent != null) {
                 parent.registerChild(node);
             }
             nodes.put(nodeDef.getName(), node);
+            snapshots.put(nodeDef.getName(), NodeSnapshot.of(nodeDef, loadingStrategy, sources));
+            createdNodes.add(node);
         }
         return node;
     }
 
+    private static ClassLoadingStrategy loadingStrategy(ClassLoaderGraphDefinition graphDefinition,
+                                                        ClassLoaderNodeDefinition nodeDef) {
+        return nodeDef.getLoadingStrategy() == null ?
+                graphDefinition.getDefaultLoadingStrategy() : nodeDef.getLoadingStrategy();
+    }
+
 
     private List<TargetImportItem> classImportsWithoutClassLoader(ClassLoaderNodeDefinition nodeDef) {
         Collection<ImportDefinition> importClassesDef = nodeDef.getImportClasses();
@@ -120,9 +476,7 @@ class GraphMaterializer {
                 log.trace("Node [{}] importing class(es) [{}] from node [{}]",
                         nodeDef.getName(), importDef.getPath(), importDef.getTarget().getName());
             }
-            TargetImportItem importEntry = new TargetImportItem(null, createClassImport(importDef.getPath()));
-            registerImportOnTarget(importDef.getTarget(), importEntry);
-            imports.add(importEntry);
+            imports.add(createImportItem(importDef.getTarget(), createClassImport(importDef.getPath())));
         }
         return imports;
     }
@@ -135,13 +489,20 @@ class GraphMaterializer {
                 log.trace("Node [{}] importing resource(s) [{}] from node [{}]",
                         nodeDef.getName(), importDef.getPath(), importDef.getTarget().getName());
             }
-            TargetImportItem importEntry = new TargetImportItem(null, createResourceImport(importDef.getPath()));
-            registerImportOnTarget(importDef.getTarget(), importEntry);
-            imports.add(importEntry);
+            imports.add(createImportItem(importDef.getTarget(), createResourceImport(importDef.getPath())));
         }
         return imports;
     }
 
+    private TargetImportItem createImportItem(ClassLoaderNodeDefinition target, ImportItem item) {
+        if (lazy) {
+            return new TargetImportItem(item, target.getName(), this);
+        }
+        TargetImportItem importEntry = new TargetImportItem(null, item);
+        registerImportOnTarget(target, importEntry);
+        return importEntry;
+    }
+
     private void registerImportOnTarget(ClassLoaderNodeDefinition target, TargetImportItem item) {
         List<TargetImportItem> targetImportItems = allImports.get(target.getName());
         if (targetImportItems == null) {
@@ -151,25 +512,185 @@ class GraphMaterializer {
         targetImportItems.add(item);
     }
 
-    private URL[] resolveSources(ClassLoaderNodeDefinition nodeDef) throws MaterializationException {
+    private Map<String, List<UrlHolder>> resolveAllSources(Collection<ClassLoaderNodeDefinition> nodeDefs,
+                                                           Map<String, List<ResourceHandler>> handlers)
+            throws MaterializationException {
+        Map<String, List<FutureTask<UrlHolder>>> tasks = new LinkedHashMap<>();
+        List<ClassLoaderNodeDefinition> resolved = new ArrayList<>();
+        for (final ClassLoaderNodeDefinition nodeDef : nodeDefs) {
+            List<UrlHolder> planned = planCache == null ? null : planCache.get(nodeDef);
+            if (planned != null) {
+                log.debug("Using planned sources of node [{}]", nodeDef.getName());
+                tasks.put(nodeDef.getName(), completedTasks(planned));
+                continue;
+            }
+            if (resolvers == null) {
+                resolvers = getResolvers();
+            }
+            resolved.add(nodeDef);
+            List<FutureTask<UrlHolder>> nodeTasks = new ArrayList<>(nodeDef.getSources().size());
+            for (final String source : nodeDef.getSources()) {
+                FutureTask<UrlHolder> task = new FutureTask<>(new Callable<UrlHolder>() {
+                    @Override
+                    public UrlHolder call() throws MaterializationException {
+                        return resolveSource(nodeDef, source);
+                    }
+                });
+                Executor executor = sourceExecutor();
+                if (executor == null) {
+                    task.run();
+                } else {
+                    executor.execute(task);
+                }
+                nodeTasks.add(task);
+            }
+            tasks.put(nodeDef.getName(), nodeTasks);
+        }
+        Map<String, List<UrlHolder>> sources = collectSources(tasks, handlers);
+        if (planCache != null) {
+            for (ClassLoaderNodeDefinition nodeDef : resolved) {
+                planCache.put(nodeDef, sources.get(nodeDef.getName()));
+            }
+        }
+        return sources;
+    }
+
+    private Executor sourceExecutor() {
+        if (parallelism <= 1) {
+            return null;
+        }
+        if (sourceExecutor == null) {
+            sourceExecutor = new ThreadPoolExecutor(parallelism, parallelism,
+                    SOURCE_RESOLVER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new SourceResolverThreadFactory());
+            sourceExecutor.allowCoreThreadTimeOut(true);
+        }
+        return sourceExecutor;
+    }
+
+    private void shutdownSourceExecutor() {
+        if (sourceExecutor != null) {
+            sourceExecutor.shutdownNow();
+            sourceExecutor = null;
+        }
+    }
+
+    private static List<FutureTask<UrlHolder>> completedTasks(List<UrlHolder> holders) {
+        List<FutureTask<UrlHolder>> tasks = new ArrayList<>(holders.size());
+        for (final UrlHolder holder : holders) {
+            FutureTask<UrlHolder> task = new FutureTask<>(new Callable<UrlHolder>() {
+                @Override
+                public UrlHolder call() {
+                    return holder;
+                }
+            });
+            task.run();
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private Map<String, List<UrlHolder>> collectSources(Map<String, List<FutureTask<UrlHolder>>> tasks,
+                                                        Map<String, List<ResourceHandler>> handlers)
+            throws MaterializationException {
+        Map<String, List<UrlHolder>> result = new HashMap<>(tasks.size());
+        MaterializationException failure = null;
+        for (Entry<String, List<FutureTask<UrlHolder>>> e : tasks.entrySet()) {
+            List<UrlHolder> holders = new ArrayList<>(e.getValue().size());
+            for (FutureTask<UrlHolder> task : e.getValue()) {
+                try {
+                    UrlHolder holder = task.get();
+                    registerNodeHandler(handlers, e.getKey(), holder);
+                    holders.add(holder);
+                } catch (ExecutionException executionException) {
+                    Throwable cause = executionException.getCause();
+                    MaterializationException exception = cause instanceof MaterializationException ?
+                            (MaterializationException) cause :
+                            new MaterializationException("Can't resolve sources of node [" + e.getKey() + "]", cause);
+                    if (failure == null) {
+                        failure = exception;
+                    } else {
+                        failure.addSuppressed(exception);
+                    }
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new MaterializationException("Interrupted while resolving sources", interrupted);
+                }
+            }
+            result.put(e.getKey(), holders);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return result;
+    }
+
+    private URL[] toUrls(ClassLoaderNodeDefinition nodeDef, List<UrlHolder> holders) {
         List<URL> urls = new ArrayList<>();
-        for (String source : nodeDef.getSources()) {
-            UrlHolder holder = resolveSource(source);
+        for (UrlHolder holder : holders) {
             urls.addAll(holder.getURLs());
         }
         log.debug("Resolved source for node {}: {}", nodeDef.getName(), urls);
         return urls.toArray(new URL[0]);
     }
 
-    private UrlHolder resolveSource(String source) throws MaterializationException {
-        for (SourceResolver resolver : resolvers) {
-            UrlHolder holder = resolver.resolveSource(source, classLoader);
-            if (holder != null) {
-                log.debug("Resolved {} to {} using resolver {}", source, holder, resolver);
-                registerPossibleHandler(holder);
-                return holder;
+    private EntryIndex buildEntryIndex(ClassLoaderNodeDefinition nodeDef, List<UrlHolder> sources)
+            throws MaterializationException {
+        SourceEngine engine = nodeDef.getSourceEngine() == null ? DEFAULT_SOURCE_ENGINE : nodeDef.getSourceEngine();
+        EntryIndex entryIndex = null;
+        if (engine != SourceEngine.URL_CLASS_LOADER) {
+            try {
+                entryIndex = EntryIndex.build(sources, engine);
+                if (entryIndex == null) {
+                    log.debug("Node [{}] sources can't be indexed. Falling back to url class path lookups", nodeDef.getName());
+                }
+            } catch (IOException e) {
+                log.warn("Can't index sources of node [{}]. Falling back to url class path lookups", nodeDef.getName(), e);
             }
         }
+        if (entryIndex == null && hasEntrySourceProviders(sources)) {
+            throw new MaterializationException("Node [" + nodeDef.getName() + "] has nested jar sources, " +
+                    "but they can't be indexed. Nested jars require a jar-file or memory-mapped source engine");
+        }
+        return entryIndex;
+    }
+
+    private static boolean hasEntrySourceProviders(List<UrlHolder> sources) {
+        for (UrlHolder holder : sources) {
+            if (holder instanceof EntrySourceProvider) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private TransformerChain createTransformerChain(ClassLoaderNodeDefinition nodeDef, EntryIndex entryIndex)
+            throws MaterializationException {
+        TransformerChain chain = TransformerChain.create(nodeDef.getTransformers(), graphDefinition.getTransformCacheDirectory());
+        if (chain != null && entryIndex == null) {
+            throw new MaterializationException("Node [" + nodeDef.getName() + "] has transformers, " +
+                    "but its sources can't be indexed. Transformers require jar or directory sources " +
+                    "and a jar-file or memory-mapped source engine");
+        }
+        return chain;
+    }
+
+    private UrlHolder resolveSource(ClassLoaderNodeDefinition nodeDef, String source) throws MaterializationException {
+        Span span = eventHook == null ? null : eventHook.startSourceResolution(nodeDef.getName(), source);
+        try {
+            for (SourceResolver resolver : resolvers) {
+                UrlHolder holder = resolver.resolveSource(source, classLoader);
+                if (holder != null) {
+                    log.debug("Resolved {} to {} using resolver {}", source, holder, resolver);
+                    end(span, "resolved");
+                    return holder;
+                }
+            }
+        } catch (RuntimeException e) {
+            end(span, "failed");
+            throw e;
+        }
+        end(span, "unresolved");
         throw new MaterializationException("Can't resolve source [" + source + "]");
     }
 
@@ -180,12 +701,127 @@ class GraphMaterializer {
         }
     }
 
-    private void initImports() {
+    private static void registerNodeHandler(Map<String, List<ResourceHandler>> handlers, String nodeName, Object object) {
+        if (object instanceof ResourceHandler) {
+            List<ResourceHandler> nodeHandlers = handlers.get(nodeName);
+            if (nodeHandlers == null) {
+                nodeHandlers = new ArrayList<>();
+                handlers.put(nodeName, nodeHandlers);
+            }
+            nodeHandlers.add((ResourceHandler) object);
+            log.trace("Resource handler [{}] of node [{}] registered for closing", object, nodeName);
+        }
+    }
+
+    private void initImports(Collection<ClassLoaderNodeImpl> toInvalidate) {
         for (Entry<String, List<TargetImportItem>> e : allImports.entrySet()) {
             ClassLoader nodeClassloader = nodes.get(e.getKey()).getClassLoader();
             for (TargetImportItem importItem : e.getValue()) {
                 importItem.setTarget(nodeClassloader);
             }
         }
+        for (ClassLoaderNodeImpl node : toInvalidate) {
+            ((ClgClassLoader) node.getClassLoader()).invalidateLookupCaches();
+        }
+    }
+
+    private void registerMBeans() {
+        if (!graphDefinition.isJmxEnabled()) {
+            return;
+        }
+        jmxRegistration = new JmxRegistration();
+        registerPossibleHandler(jmxRegistration);
+        registerMBeans(nodes.values());
+        log.debug("Registered MBeans of graph [{}]", jmxRegistration.getGraphId());
+    }
+
+    private void registerMBeans(Collection<ClassLoaderNodeImpl> nodes) {
+        if (jmxRegistration == null) {
+            return;
+        }
+        for (ClassLoaderNodeImpl node : nodes) {
+            jmxRegistration.register(node.getName(), ((ClgClassLoader) node.getClassLoader()).getStatistics());
+        }
+    }
+
+    private ClassLoadingListener createListener() {
+        List<ClassLoadingListener> listeners = ClassLoadingListeners.load(classLoader);
+        Path profileFile = graphDefinition.getPreloadProfile();
+        if (profileFile != null) {
+            preloadProfile = new PreloadProfile(profileFile);
+            registerPossibleHandler(preloadProfile);
+            listeners.add(preloadProfile.recorder());
+        }
+        log.debug("Got {} class loading listeners", listeners.size());
+        return ClassLoadingListeners.combine(listeners);
+    }
+
+    private void initPreloadProfile() {
+        if (preloadProfile == null) {
+            return;
+        }
+        Map<String, ClassLoader> loaders = new HashMap<>(nodes.size());
+        for (ClassLoaderNodeImpl node : nodes.values()) {
+            loaders.put(node.getName(), node.getClassLoader());
+        }
+        preloadProfile.start(PreloadProfile.loaders(loaders));
+    }
+
+    private class Checkpoint {
+        private final ClassLoaderGraphDefinition graphDefinition = GraphMaterializer.this.graphDefinition;
+        private final Map<String, ClassLoaderNodeImpl> nodes = GraphMaterializer.this.nodes;
+        private final Map<String, List<ResourceHandler>> nodeHandlers = GraphMaterializer.this.nodeHandlers;
+        private final Map<String, NodeSnapshot> snapshots = GraphMaterializer.this.snapshots;
+
+        void restore(Exception failure) {
+            for (ClassLoaderNodeImpl node : drainCreatedNodes()) {
+                ClassLoaderNodeImpl parent = (ClassLoaderNodeImpl) node.getParent();
+                if (parent != null && nodes.get(parent.getName()) == parent) {
+                    parent.unregisterChild(node.getName());
+                    ClassLoaderNodeImpl previous = nodes.get(node.getName());
+                    if (previous != null && previous.getParent() == parent) {
+                        parent.registerChild(previous);
+                    }
+                }
+                try {
+                    ClassLoaderGraphImpl.close(Collections.singletonList(node), Collections.<ResourceHandler>emptyList());
+                } catch (IOException e) {
+                    failure.addSuppressed(e);
+                }
+            }
+            for (Entry<String, List<ResourceHandler>> e : GraphMaterializer.this.nodeHandlers.entrySet()) {
+                if (nodeHandlers.get(e.getKey()) != e.getValue()) {
+                    closeHandlers(e.getValue(), failure);
+                }
+            }
+            GraphMaterializer.this.graphDefinition = graphDefinition;
+            GraphMaterializer.this.nodes = nodes;
+            GraphMaterializer.this.nodeHandlers = nodeHandlers;
+            GraphMaterializer.this.snapshots = snapshots;
+        }
+    }
+
+    private class LazyLoaders implements PreloadProfile.Loaders {
+        @Override
+        public ClassLoader loaderOf(String nodeName) {
+            try {
+                ClassLoaderNodeImpl node = getNode(nodeName);
+                return node == null ? null : node.getClassLoader();
+            } catch (MaterializationException | IllegalStateException e) {
+                log.debug("Can't materialize node [{}] for preloading", nodeName, e);
+                return null;
+            }
+        }
+    }
+
+    private static class SourceResolverThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "clg-source-resolver-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 }
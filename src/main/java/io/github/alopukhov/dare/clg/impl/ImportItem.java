@@ -34,6 +34,10 @@ abstract class ImportItem {
 
     abstract boolean accepts(String path);
 
+    abstract Kind getKind();
+
+    abstract String getPrefix();
+
     private static void validateImportPath(String importPath) {
         if (!VALID_WILDCARD.matcher(importPath).matches()) {
             throw new IllegalArgumentException("Bad import path " + importPath);
@@ -48,6 +52,16 @@ abstract class ImportItem {
         boolean accepts(String path) {
             return importPath.equals(path);
         }
+
+        @Override
+        Kind getKind() {
+            return Kind.EXACT;
+        }
+
+        @Override
+        String getPrefix() {
+            return importPath;
+        }
     }
 
     @RequiredArgsConstructor
@@ -59,6 +73,16 @@ abstract class ImportItem {
         boolean accepts(String path) {
             return path != null && path.startsWith(importPath) && path.lastIndexOf(delimiter) <= importPath.length();
         }
+
+        @Override
+        Kind getKind() {
+            return Kind.WILDCARD;
+        }
+
+        @Override
+        String getPrefix() {
+            return importPath;
+        }
     }
 
     @RequiredArgsConstructor
@@ -69,5 +93,19 @@ abstract class ImportItem {
         boolean accepts(String path) {
             return path != null && path.startsWith(importPath);
         }
+
+        @Override
+        Kind getKind() {
+            return Kind.DOUBLE_WILDCARD;
+        }
+
+        @Override
+        String getPrefix() {
+            return importPath;
+        }
+    }
+
+    enum Kind {
+        EXACT, WILDCARD, DOUBLE_WILDCARD
     }
-}
\ No newline at end of file
+}
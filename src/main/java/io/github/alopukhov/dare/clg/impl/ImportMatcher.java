@@ -0,0 +1,155 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.*;
+import java.util.Map.Entry;
+
+class ImportMatcher<T> {
+    private static final Rule<?>[] NO_RULES = new Rule<?>[0];
+    private final char delimiter;
+    private final Node<T> root;
+
+    private ImportMatcher(char delimiter, Node<T> root) {
+        this.delimiter = delimiter;
+        this.root = root;
+    }
+
+    static ImportMatcher<TargetImportItem> compile(List<TargetImportItem> imports, char delimiter) {
+        Builder<TargetImportItem> builder = new Builder<>(delimiter);
+        for (TargetImportItem item : imports) {
+            builder.add(item.getImportItem(), item);
+        }
+        return builder.build();
+    }
+
+    Rule<T>[] candidates(String name) {
+        Node<T> node = root;
+        for (int i = 0, length = name.length(); i < length; i++) {
+            Node<T> child = node.child(name.charAt(i));
+            if (child == null) {
+                return node.inherited;
+            }
+            node = child;
+        }
+        return node.rules;
+    }
+
+    int lastDelimiter(String name) {
+        return name.lastIndexOf(delimiter);
+    }
+
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    static class Rule<T> {
+        private final int order;
+        private final ImportItem.Kind kind;
+        private final int prefixLength;
+        @Getter
+        private final T value;
+
+        boolean accepts(int nameLength, int lastDelimiter) {
+            switch (kind) {
+                case EXACT:
+                    return nameLength == prefixLength;
+                case WILDCARD:
+                    return lastDelimiter <= prefixLength;
+                default:
+                    return true;
+            }
+        }
+    }
+
+    private static class Node<T> {
+        private final char[] keys;
+        private final Node<T>[] children;
+        private final Rule<T>[] rules;
+        private final Rule<T>[] inherited;
+
+        private Node(char[] keys, Node<T>[] children, Rule<T>[] rules, Rule<T>[] inherited) {
+            this.keys = keys;
+            this.children = children;
+            this.rules = rules;
+            this.inherited = inherited;
+        }
+
+        private Node<T> child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i < 0 ? null : children[i];
+        }
+    }
+
+    static class Builder<T> {
+        private final char delimiter;
+        private final BuilderNode<T> root = new BuilderNode<>();
+        private int order;
+
+        Builder(char delimiter) {
+            this.delimiter = delimiter;
+        }
+
+        Builder<T> add(ImportItem item, T value) {
+            String prefix = item.getPrefix();
+            BuilderNode<T> node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                char c = prefix.charAt(i);
+                BuilderNode<T> child = node.children.get(c);
+                if (child == null) {
+                    child = new BuilderNode<>();
+                    node.children.put(c, child);
+                }
+                node = child;
+            }
+            Rule<T> rule = new Rule<>(order++, item.getKind(), prefix.length(), value);
+            if (item.getKind() == ImportItem.Kind.EXACT) {
+                node.exact.add(rule);
+            } else {
+                node.prefixed.add(rule);
+            }
+            return this;
+        }
+
+        ImportMatcher<T> build() {
+            @SuppressWarnings("unchecked")
+            Rule<T>[] noRules = (Rule<T>[]) NO_RULES;
+            return new ImportMatcher<>(delimiter, freeze(root, noRules));
+        }
+
+        private Node<T> freeze(BuilderNode<T> node, Rule<T>[] parentInherited) {
+            Rule<T>[] inherited = node.prefixed.isEmpty() ? parentInherited : merge(parentInherited, node.prefixed);
+            Rule<T>[] rules = node.exact.isEmpty() ? inherited : merge(inherited, node.exact);
+            char[] keys = new char[node.children.size()];
+            @SuppressWarnings("unchecked")
+            Node<T>[] children = (Node<T>[]) new Node<?>[keys.length];
+            int i = 0;
+            for (Entry<Character, BuilderNode<T>> e : node.children.entrySet()) {
+                keys[i] = e.getKey();
+                children[i] = freeze(e.getValue(), inherited);
+                i++;
+            }
+            return new Node<>(keys, children, rules, inherited);
+        }
+
+        private static <T> Rule<T>[] merge(Rule<T>[] first, List<Rule<T>> second) {
+            List<Rule<T>> merged = new ArrayList<>(first.length + second.size());
+            merged.addAll(Arrays.asList(first));
+            merged.addAll(second);
+            Collections.sort(merged, new Comparator<Rule<T>>() {
+                @Override
+                public int compare(Rule<T> o1, Rule<T> o2) {
+                    return Integer.compare(o1.order, o2.order);
+                }
+            });
+            @SuppressWarnings("unchecked")
+            Rule<T>[] result = merged.toArray((Rule<T>[]) NO_RULES);
+            return result;
+        }
+    }
+
+    private static class BuilderNode<T> {
+        private final SortedMap<Character, BuilderNode<T>> children = new TreeMap<>();
+        private final List<Rule<T>> exact = new ArrayList<>(1);
+        private final List<Rule<T>> prefixed = new ArrayList<>(1);
+    }
+}
@@ -0,0 +1,141 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.spi.ResourceHandler;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+class ImportResolutionCache implements ResourceHandler {
+    private final ConcurrentMap<Key, Object> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong resolutions = new AtomicLong();
+
+    Class<?> resolve(ClassLoader target, String name) {
+        Key key = new Key(target, name);
+        Object value = entries.get(key);
+        if (value == null) {
+            Resolution created = new Resolution(target, name);
+            value = entries.putIfAbsent(key, created);
+            if (value == null) {
+                return run(key, created);
+            }
+        }
+        if (value instanceof Class) {
+            hits.incrementAndGet();
+            return (Class<?>) value;
+        }
+        Resolution resolution = (Resolution) value;
+        if (resolution.owner == Thread.currentThread()) {
+            return load(target, name);
+        }
+        coalesced.incrementAndGet();
+        return resolution.await();
+    }
+
+    void invalidate() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getCoalesced() {
+        return coalesced.get();
+    }
+
+    long getResolutions() {
+        return resolutions.get();
+    }
+
+    @Override
+    public void close() {
+        log.debug("Import resolution cache hits: {}, coalesced: {}, resolutions: {}",
+                hits.get(), coalesced.get(), resolutions.get());
+        entries.clear();
+    }
+
+    private Class<?> run(Key key, Resolution resolution) {
+        resolutions.incrementAndGet();
+        try {
+            resolution.run();
+            Class<?> c = resolution.await();
+            if (c != null) {
+                entries.replace(key, resolution, c);
+            }
+            return c;
+        } finally {
+            entries.remove(key, resolution);
+        }
+    }
+
+    static Class<?> load(ClassLoader target, String name) {
+        if (target instanceof ClgClassLoader) {
+            return ((ClgClassLoader) target).tryLoad(name, false);
+        }
+        try {
+            return target.loadClass(name);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    @RequiredArgsConstructor
+    @EqualsAndHashCode
+    private static class Key {
+        private final ClassLoader target;
+        private final String name;
+    }
+
+    private static class Resolution extends FutureTask<Class<?>> {
+        private final Thread owner = Thread.currentThread();
+
+        Resolution(final ClassLoader target, final String name) {
+            super(new Callable<Class<?>>() {
+                @Override
+                public Class<?> call() {
+                    return load(target, name);
+                }
+            });
+        }
+
+        Class<?> await() {
+            boolean interrupted = false;
+            try {
+                for (;;) {
+                    try {
+                        return get();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        if (cause instanceof RuntimeException) {
+                            throw (RuntimeException) cause;
+                        }
+                        if (cause instanceof Error) {
+                            throw (Error) cause;
+                        }
+                        throw new IllegalStateException(cause);
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+@Slf4j
+class JarEntrySource extends EntrySource {
+    private static final String MULTI_RELEASE = "Multi-Release";
+    private final File file;
+    private final String entryUrlBase;
+    private volatile JarFile jarFile;
+    private volatile Manifest manifest;
+    private boolean closed;
+
+    JarEntrySource(URL url, File file) {
+        super(url);
+        this.file = file;
+        this.entryUrlBase = "jar:" + url + "!/";
+    }
+
+    static boolean isMultiRelease(Manifest manifest) {
+        return manifest != null && "true".equalsIgnoreCase(manifest.getMainAttributes().getValue(MULTI_RELEASE));
+    }
+
+    @Override
+    Collection<String> listEntries() throws IOException {
+        try (JarFile jar = new JarFile(file, false)) {
+            if (isMultiRelease(jar.getManifest())) {
+                log.debug("Jar [{}] is multi-release and can't be indexed", file);
+                return null;
+            }
+            List<String> names = new ArrayList<>(jar.size());
+            for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements(); ) {
+                names.add(entries.nextElement().getName());
+            }
+            return names;
+        }
+    }
+
+    @Override
+    URL getEntryUrl(String name) {
+        return concatUrl(entryUrlBase, name);
+    }
+
+    @Override
+    LoadedEntry readEntry(String name) throws IOException {
+        JarFile jar = getJarFile();
+        JarEntry entry = jar.getJarEntry(name);
+        if (entry == null) {
+            return null;
+        }
+        byte[] bytes;
+        try (InputStream in = jar.getInputStream(entry)) {
+            bytes = readFully(in, (int) entry.getSize());
+        }
+        return new LoadedEntry(bytes, entry.getCodeSigners());
+    }
+
+    @Override
+    Manifest getManifest() throws IOException {
+        Manifest result = manifest;
+        if (result == null) {
+            result = getJarFile().getManifest();
+            manifest = result;
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        JarFile jar = jarFile;
+        jarFile = null;
+        if (jar != null) {
+            jar.close();
+        }
+    }
+
+    private JarFile getJarFile() throws IOException {
+        JarFile jar = jarFile;
+        if (jar == null) {
+            synchronized (this) {
+                if (closed) {
+                    throw new IOException("Source " + getUrl() + " is closed");
+                }
+                jar = jarFile;
+                if (jar == null) {
+                    jar = new JarFile(file);
+                    jarFile = jar;
+                }
+            }
+        }
+        return jar;
+    }
+}
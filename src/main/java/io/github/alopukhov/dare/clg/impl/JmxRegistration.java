@@ -0,0 +1,75 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoaderNodeMXBean;
+import io.github.alopukhov.dare.clg.spi.ResourceHandler;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+class JmxRegistration implements ResourceHandler {
+    static final String DOMAIN = "io.github.alopukhov.dare.clg";
+    private static final AtomicInteger graphCounter = new AtomicInteger();
+    private final MBeanServer server;
+    private final String graphId;
+    private final List<ObjectName> registered = new ArrayList<>();
+
+    JmxRegistration() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    JmxRegistration(MBeanServer server) {
+        this.server = server;
+        this.graphId = "graph-" + graphCounter.incrementAndGet();
+    }
+
+    synchronized void register(String nodeName, LoaderStatistics statistics) {
+        try {
+            ObjectName name = objectName(graphId, nodeName);
+            server.registerMBean(new StandardMBean(new NodeStatisticsMBean(nodeName, statistics), ClassLoaderNodeMXBean.class, true), name);
+            registered.add(name);
+            log.trace("Registered MBean [{}]", name);
+        } catch (JMException e) {
+            log.warn("Can't register MBean for node [{}]", nodeName, e);
+        }
+    }
+
+    synchronized void unregister(String nodeName) {
+        try {
+            ObjectName name = objectName(graphId, nodeName);
+            if (registered.remove(name)) {
+                server.unregisterMBean(name);
+                log.trace("Unregistered MBean [{}]", name);
+            }
+        } catch (JMException e) {
+            log.warn("Can't unregister MBean for node [{}]", nodeName, e);
+        }
+    }
+
+    String getGraphId() {
+        return graphId;
+    }
+
+    static ObjectName objectName(String graphId, String nodeName) throws JMException {
+        return new ObjectName(DOMAIN + ":type=ClassLoaderNode,graph=" + graphId + ",node=" + ObjectName.quote(nodeName));
+    }
+
+    @Override
+    public synchronized void close() {
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                log.warn("Can't unregister MBean [{}]", name, e);
+            }
+        }
+        registered.clear();
+    }
+}
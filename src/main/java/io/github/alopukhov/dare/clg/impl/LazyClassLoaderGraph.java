@@ -0,0 +1,62 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoaderGraph;
+import io.github.alopukhov.dare.clg.ClassLoaderGraphDefinition;
+import io.github.alopukhov.dare.clg.ClassLoaderNode;
+import io.github.alopukhov.dare.clg.MaterializationException;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Collections.unmodifiableList;
+
+@RequiredArgsConstructor
+class LazyClassLoaderGraph implements ClassLoaderGraph {
+    private final GraphMaterializer materializer;
+
+    @Override
+    public ClassLoader getParentClassLoader() {
+        return materializer.getParentClassLoader();
+    }
+
+    @Override
+    public ClassLoaderNode getNode(String name) {
+        try {
+            return materializer.getNode(name);
+        } catch (MaterializationException e) {
+            throw new IllegalStateException("Can't materialize node [" + name + "]", e);
+        }
+    }
+
+    @Override
+    public Collection<ClassLoaderNode> getAllNodes() {
+        return getNodes(false);
+    }
+
+    @Override
+    public Collection<ClassLoaderNode> getOrphanNodes() {
+        return getNodes(true);
+    }
+
+    @Override
+    public Set<String> rematerialize(ClassLoaderGraphDefinition definition) throws MaterializationException {
+        return materializer.rematerialize(definition);
+    }
+
+    @Override
+    public void close() throws IOException {
+        materializer.close();
+    }
+
+    private Collection<ClassLoaderNode> getNodes(boolean orphansOnly) {
+        List<ClassLoaderNode> result = new ArrayList<>();
+        for (String name : materializer.getDefinedNodeNames(orphansOnly)) {
+            result.add(getNode(name));
+        }
+        return unmodifiableList(result);
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+class LoaderStatistics {
+    static final int HISTOGRAM_BUCKETS = 40;
+    private static final int STRIPES = stripes();
+    private static final int BLOCK = align(Counter.values().length + HISTOGRAM_BUCKETS);
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * BLOCK);
+
+    void increment(Counter counter) {
+        cells.incrementAndGet(base() + counter.ordinal());
+    }
+
+    void recordLoadClass(long nanos) {
+        int base = base();
+        cells.incrementAndGet(base + Counter.LOAD_CLASS_CALLS.ordinal());
+        cells.addAndGet(base + Counter.LOAD_CLASS_NANOS.ordinal(), nanos);
+        cells.incrementAndGet(base + Counter.values().length + bucket(nanos));
+    }
+
+    long get(Counter counter) {
+        return sum(counter.ordinal());
+    }
+
+    long[] getHistogram() {
+        long[] histogram = new long[HISTOGRAM_BUCKETS];
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            histogram[i] = sum(Counter.values().length + i);
+        }
+        return histogram;
+    }
+
+    static int bucket(long nanos) {
+        int bucket = nanos <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(nanos);
+        return Math.min(bucket, HISTOGRAM_BUCKETS - 1);
+    }
+
+    private long sum(int offset) {
+        long sum = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            sum += cells.get(stripe * BLOCK + offset);
+        }
+        return sum;
+    }
+
+    private static int base() {
+        return ((int) Thread.currentThread().getId() & (STRIPES - 1)) * BLOCK;
+    }
+
+    private static int stripes() {
+        int target = Math.min(64, Runtime.getRuntime().availableProcessors() * 2);
+        int stripes = 1;
+        while (stripes < target) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    private static int align(int size) {
+        return (size + 7) & ~7;
+    }
+
+    enum Counter {
+        LOAD_CLASS_CALLS, LOAD_CLASS_NANOS, ALREADY_LOADED, PARENT_HITS, SELF_HITS, IMPORT_HITS,
+        CLASS_MISSES, NEGATIVE_CACHE_HITS, RESOURCE_LOOKUPS, RESOURCE_MISSES, RESOURCE_CACHE_HITS
+    }
+}
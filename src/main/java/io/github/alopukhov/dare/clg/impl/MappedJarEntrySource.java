@@ -0,0 +1,192 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipException;
+
+@Slf4j
+class MappedJarEntrySource extends EntrySource {
+    private final File file;
+    private final String entryUrlBase;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile ZipDirectory directory;
+    private ByteBuffer mapped;
+    private volatile EntrySource fallback;
+    private volatile Manifest manifest;
+
+    MappedJarEntrySource(URL url, File file) {
+        super(url);
+        this.file = file;
+        this.entryUrlBase = "jar:" + url + "!/";
+    }
+
+    @Override
+    Collection<String> listEntries() throws IOException {
+        ByteBuffer buffer = null;
+        ZipDirectory zip;
+        try {
+            buffer = map(file);
+            zip = ZipDirectory.parse(buffer);
+        } catch (ZipException e) {
+            log.debug("Jar [{}] can't be memory mapped ({}). Using jar file engine", file, e.getMessage());
+            unmap(buffer);
+            return useFallback();
+        }
+        if (isSigned(zip)) {
+            log.debug("Jar [{}] is signed. Using jar file engine to verify entries", file);
+            unmap(buffer);
+            return useFallback();
+        }
+        lock.writeLock().lock();
+        try {
+            mapped = buffer;
+            directory = zip;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (JarEntrySource.isMultiRelease(getManifest())) {
+            log.debug("Jar [{}] is multi-release and can't be indexed", file);
+            return null;
+        }
+        return zip.names();
+    }
+
+    @Override
+    URL getEntryUrl(String name) {
+        EntrySource delegate = fallback;
+        return delegate != null ? delegate.getEntryUrl(name) : concatUrl(entryUrlBase, name);
+    }
+
+    @Override
+    LoadedEntry readEntry(String name) throws IOException {
+        EntrySource delegate = fallback;
+        if (delegate != null) {
+            return delegate.readEntry(name);
+        }
+        lock.readLock().lock();
+        try {
+            ZipDirectory zip = getDirectory();
+            int index = zip.indexOf(name);
+            return index < 0 ? null : new LoadedEntry(zip.read(index), null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    Manifest getManifest() throws IOException {
+        EntrySource delegate = fallback;
+        if (delegate != null) {
+            return delegate.getManifest();
+        }
+        Manifest result = manifest;
+        if (result == null) {
+            byte[] bytes;
+            lock.readLock().lock();
+            try {
+                ZipDirectory zip = getDirectory();
+                int index = zip.indexOf(JarFile.MANIFEST_NAME);
+                if (index < 0) {
+                    return null;
+                }
+                bytes = zip.read(index);
+            } finally {
+                lock.readLock().unlock();
+            }
+            result = new Manifest(new ByteArrayInputStream(bytes));
+            manifest = result;
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        ByteBuffer buffer;
+        lock.writeLock().lock();
+        try {
+            directory = null;
+            buffer = mapped;
+            mapped = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        unmap(buffer);
+        EntrySource delegate = fallback;
+        if (delegate != null) {
+            delegate.close();
+        }
+    }
+
+    static ByteBuffer map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new ZipException("Archive is too large to be mapped: " + size);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    static void unmap(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect()) {
+            return;
+        }
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner;
+            try {
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (NoSuchMethodException e) {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+                return;
+            }
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        } catch (Exception | LinkageError e) {
+            log.trace("Can't unmap buffer. It will be released by garbage collector", e);
+        }
+    }
+
+    private Collection<String> useFallback() throws IOException {
+        JarEntrySource jarSource = new JarEntrySource(getUrl(), file);
+        fallback = jarSource;
+        return jarSource.listEntries();
+    }
+
+    private ZipDirectory getDirectory() throws IOException {
+        ZipDirectory zip = directory;
+        if (zip == null) {
+            throw new IOException("Source " + getUrl() + " is closed");
+        }
+        return zip;
+    }
+
+    private static boolean isSigned(ZipDirectory zip) {
+        for (String name : zip.names()) {
+            if (name.startsWith("META-INF/") && name.toUpperCase().endsWith(".SF")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
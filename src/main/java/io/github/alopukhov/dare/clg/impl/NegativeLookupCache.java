@@ -0,0 +1,81 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+class NegativeLookupCache {
+    static final int DEFAULT_MAX_SIZE = 8192;
+    private final int maxSize;
+    private final ConcurrentMap<String, Boolean> names;
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile int generation;
+
+    NegativeLookupCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    NegativeLookupCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.names = new ConcurrentHashMap<>(Math.min(maxSize, 256));
+    }
+
+    boolean isKnownMiss(String name) {
+        if (names.containsKey(name)) {
+            hits.incrementAndGet();
+            return true;
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    int generation() {
+        return generation;
+    }
+
+    void recordMiss(String name, int lookupGeneration) {
+        if (lookupGeneration != generation) {
+            return;
+        }
+        if (names.putIfAbsent(name, Boolean.TRUE) == null && size.incrementAndGet() > maxSize) {
+            evict();
+        }
+        if (lookupGeneration != generation && names.remove(name) != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    synchronized void invalidate() {
+        generation++;
+        names.clear();
+        size.set(0);
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    int size() {
+        return names.size();
+    }
+
+    private void evict() {
+        int toRemove = size.get() - maxSize + maxSize / 4;
+        for (Iterator<String> it = names.keySet().iterator(); toRemove > 0 && it.hasNext(); toRemove--) {
+            if (names.remove(it.next()) != null) {
+                size.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.spi.ResourceHandler;
+import io.github.alopukhov.dare.clg.spi.SourceResolver;
+import io.github.alopukhov.dare.clg.spi.UrlHolder;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.regex.Pattern;
+
+@Slf4j
+class NestedJarSourceResolver implements SourceResolver, ResourceHandler {
+    private static final String JAR_PROTOCOL = "jar:";
+    private static final String FILE_PROTOCOL = "file:";
+    private static final String SEPARATOR = "!/";
+    private final Map<Path, MappedArchive> archives = new HashMap<>();
+
+    @Override
+    public synchronized UrlHolder resolveSource(String sourcePath, ClassLoader classLoader) {
+        if (!sourcePath.startsWith(JAR_PROTOCOL)) {
+            return null;
+        }
+        int separator = sourcePath.indexOf(SEPARATOR);
+        if (separator < 0 || sourcePath.indexOf(SEPARATOR, separator + SEPARATOR.length()) >= 0) {
+            return null;
+        }
+        String innerPath = sourcePath.substring(separator + SEPARATOR.length());
+        if (innerPath.isEmpty()) {
+            return null;
+        }
+        try {
+            Path outerPath = toPath(sourcePath.substring(JAR_PROTOCOL.length(), separator));
+            if (outerPath == null) {
+                return null;
+            }
+            ZipDirectory outer = getArchive(outerPath);
+            String outerBase = JAR_PROTOCOL + outerPath.toUri().toURL() + SEPARATOR;
+            if (innerPath.endsWith("/")) {
+                URL url = new URL(outerBase + EntrySource.encodePath(innerPath));
+                return new NestedUrlHolder(Collections.singletonList(ArchiveEntrySource.nestedDirectory(url, outer, innerPath)));
+            }
+            List<String> jarNames = findJars(outer, innerPath);
+            if (jarNames.isEmpty()) {
+                log.warn("No nested jars matching [{}] found in [{}]", innerPath, outerPath);
+                return null;
+            }
+            List<ArchiveEntrySource> sources = new ArrayList<>(jarNames.size());
+            for (String jarName : jarNames) {
+                URL url = new URL(outerBase + EntrySource.encodePath(jarName));
+                sources.add(ArchiveEntrySource.nestedJar(url, openNested(outer, jarName)));
+            }
+            return new NestedUrlHolder(sources);
+        } catch (IOException e) {
+            log.warn("IO exception occured during attempt to resolve source [{}]", sourcePath, e);
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        archives.clear();
+    }
+
+    private ZipDirectory getArchive(Path path) throws IOException {
+        File file = path.toFile();
+        long lastModified = file.lastModified();
+        long size = file.length();
+        MappedArchive archive = archives.get(path);
+        if (archive == null || archive.lastModified != lastModified || archive.size != size) {
+            if (archive != null) {
+                log.debug("Outer archive [{}] changed. Mapping it again", path);
+            }
+            archive = new MappedArchive(lastModified, size, ZipDirectory.parse(MappedJarEntrySource.map(file)));
+            archives.put(path, archive);
+        }
+        return archive.directory;
+    }
+
+    private static List<String> findJars(ZipDirectory outer, String innerPath) {
+        int dirPos = innerPath.lastIndexOf('/');
+        String dir = innerPath.substring(0, dirPos + 1);
+        String file = innerPath.substring(dirPos + 1);
+        if (file.indexOf('*') < 0) {
+            return outer.indexOf(innerPath) < 0 ? Collections.<String>emptyList() : Collections.singletonList(innerPath);
+        }
+        Pattern filePattern = DefaultSourceResolver.getFilenamePattern(file);
+        List<String> result = new ArrayList<>();
+        String previous = null;
+        for (String name : outer.names()) {
+            if (name.startsWith(dir) && name.indexOf('/', dir.length()) < 0 && !name.equals(previous)
+                    && filePattern.matcher(name.substring(dir.length())).matches()) {
+                result.add(name);
+                previous = name;
+            }
+        }
+        return result;
+    }
+
+    private static ZipDirectory openNested(ZipDirectory outer, String name) throws IOException {
+        int index = outer.indexOf(name);
+        ByteBuffer data = outer.getMethod(index) == ZipDirectory.STORED ?
+                outer.slice(index) : ByteBuffer.wrap(outer.read(index));
+        return ZipDirectory.parse(data);
+    }
+
+    private static Path toPath(String outer) {
+        try {
+            if (outer.startsWith(FILE_PROTOCOL)) {
+                String path = EntrySource.encodePath(EntrySource.decodePath(outer.substring(FILE_PROTOCOL.length())));
+                return Paths.get(URI.create(FILE_PROTOCOL + path));
+            }
+            return outer.indexOf(':') < 0 ? Paths.get(outer).toAbsolutePath() : null;
+        } catch (IllegalArgumentException e) {
+            log.debug("Outer archive [{}] is not a local file", outer);
+            return null;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class MappedArchive {
+        private final long lastModified;
+        private final long size;
+        private final ZipDirectory directory;
+    }
+
+    @ToString
+    private static class NestedUrlHolder implements UrlHolder, EntrySourceProvider {
+        private final List<ArchiveEntrySource> sources;
+
+        NestedUrlHolder(List<ArchiveEntrySource> sources) {
+            this.sources = sources;
+        }
+
+        @Override
+        public Collection<URL> getURLs() {
+            List<URL> urls = new ArrayList<>(sources.size());
+            for (ArchiveEntrySource source : sources) {
+                urls.add(source.getUrl());
+            }
+            return urls;
+        }
+
+        @Override
+        public EntrySource createEntrySource(URL url) {
+            for (ArchiveEntrySource source : sources) {
+                if (source.getUrl().toString().equals(url.toString())) {
+                    return source;
+                }
+            }
+            return null;
+        }
+    }
+}
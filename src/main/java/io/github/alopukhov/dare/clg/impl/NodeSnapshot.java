@@ -0,0 +1,122 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoadingStrategy;
+import io.github.alopukhov.dare.clg.ClassLoaderNodeDefinition;
+import io.github.alopukhov.dare.clg.ImportDefinition;
+import io.github.alopukhov.dare.clg.LockMode;
+import io.github.alopukhov.dare.clg.SourceEngine;
+import io.github.alopukhov.dare.clg.spi.BytecodeTransformer;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Slf4j
+@RequiredArgsConstructor
+@EqualsAndHashCode
+@ToString
+class NodeSnapshot {
+    private static final String FILE_PROTOCOL = "file:";
+    private static final String JAR_PROTOCOL = "jar:";
+    private final String parent;
+    private final List<String> sources;
+    private final List<Long> stamps;
+    private final ClassLoadingStrategy loadingStrategy;
+    private final List<String> classImports;
+    private final List<String> resourceImports;
+    private final SourceEngine sourceEngine;
+    private final LockMode lockMode;
+    private final int resourceCacheSize;
+    private final List<String> transformers;
+
+    static NodeSnapshot of(ClassLoaderNodeDefinition nodeDef, ClassLoadingStrategy loadingStrategy, URL[] urls) {
+        List<String> sources = new ArrayList<>(urls.length);
+        List<Long> stamps = new ArrayList<>(urls.length * 2);
+        for (URL url : urls) {
+            sources.add(url.toString());
+            File file = toFile(url.toString());
+            if (file != null && file.isDirectory()) {
+                addTreeStamps(file.toPath(), stamps);
+            } else {
+                stamps.add(file == null ? -1L : file.lastModified());
+                stamps.add(file == null ? -1L : file.length());
+            }
+        }
+        List<String> transformers = new ArrayList<>(nodeDef.getTransformers().size());
+        for (BytecodeTransformer transformer : nodeDef.getTransformers()) {
+            transformers.add(transformer.getClass().getName() + "@" + transformer.getVersion());
+        }
+        return new NodeSnapshot(
+                nodeDef.getParent() == null ? null : nodeDef.getParent().getName(),
+                sources,
+                stamps,
+                loadingStrategy,
+                imports(nodeDef.getImportClasses()),
+                imports(nodeDef.getImportResources()),
+                nodeDef.getSourceEngine(),
+                nodeDef.getLockMode(),
+                nodeDef.getResourceCacheSize(),
+                transformers);
+    }
+
+    private static void addTreeStamps(Path root, List<Long> stamps) {
+        final long[] tree = {0L, 0L};
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    tree[0] = Math.max(tree[0], attrs.lastModifiedTime().toMillis());
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    tree[0] = Math.max(tree[0], attrs.lastModifiedTime().toMillis());
+                    tree[1] += attrs.size() + 1;
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.debug("Can't walk source directory [{}]. Treating it as changed", root, e);
+            tree[0] = -1L;
+            tree[1] = System.nanoTime();
+        }
+        stamps.add(tree[0]);
+        stamps.add(tree[1]);
+    }
+
+    private static List<String> imports(Collection<ImportDefinition> importDefs) {
+        List<String> imports = new ArrayList<>(importDefs.size());
+        for (ImportDefinition importDef : importDefs) {
+            imports.add(importDef.getTarget().getName() + ":" + importDef.getPath());
+        }
+        return imports;
+    }
+
+    private static File toFile(String url) {
+        if (url.startsWith(JAR_PROTOCOL)) {
+            int separator = url.indexOf("!/");
+            url = separator < 0 ? url.substring(JAR_PROTOCOL.length()) : url.substring(JAR_PROTOCOL.length(), separator);
+        }
+        if (!url.startsWith(FILE_PROTOCOL)) {
+            return null;
+        }
+        try {
+            return new File(new URL(url).toURI());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoaderNodeMXBean;
+import io.github.alopukhov.dare.clg.impl.LoaderStatistics.Counter;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+class NodeStatisticsMBean implements ClassLoaderNodeMXBean {
+    @Getter
+    private final String nodeName;
+    private final LoaderStatistics statistics;
+
+    @Override
+    public long getLoadClassCalls() {
+        return statistics.get(Counter.LOAD_CLASS_CALLS);
+    }
+
+    @Override
+    public long getAlreadyLoaded() {
+        return statistics.get(Counter.ALREADY_LOADED);
+    }
+
+    @Override
+    public long getParentHits() {
+        return statistics.get(Counter.PARENT_HITS);
+    }
+
+    @Override
+    public long getSelfHits() {
+        return statistics.get(Counter.SELF_HITS);
+    }
+
+    @Override
+    public long getImportHits() {
+        return statistics.get(Counter.IMPORT_HITS);
+    }
+
+    @Override
+    public long getClassMisses() {
+        return statistics.get(Counter.CLASS_MISSES);
+    }
+
+    @Override
+    public long getNegativeCacheHits() {
+        return statistics.get(Counter.NEGATIVE_CACHE_HITS);
+    }
+
+    @Override
+    public long getResourceLookups() {
+        return statistics.get(Counter.RESOURCE_LOOKUPS);
+    }
+
+    @Override
+    public long getResourceMisses() {
+        return statistics.get(Counter.RESOURCE_MISSES);
+    }
+
+    @Override
+    public long getResourceCacheHits() {
+        return statistics.get(Counter.RESOURCE_CACHE_HITS);
+    }
+
+    @Override
+    public long getLoadClassTotalNanos() {
+        return statistics.get(Counter.LOAD_CLASS_NANOS);
+    }
+
+    @Override
+    public long[] getLoadClassLatencyHistogram() {
+        return statistics.getHistogram();
+    }
+}
@@ -0,0 +1,249 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoaderNodeDefinition;
+import io.github.alopukhov.dare.clg.spi.SourceResolver;
+import io.github.alopukhov.dare.clg.spi.UrlHolder;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.Map.Entry;
+
+@Slf4j
+class PlanCache {
+    private static final int MAGIC = 0x434c4750;
+    private static final int VERSION = 2;
+    private static final String RESOLVER_SERVICES = "META-INF/services/" + SourceResolver.class.getName();
+    private final Path file;
+    private final String key;
+    private final Map<String, NodePlan> plans;
+    private boolean dirty;
+
+    private PlanCache(Path file, String key, Map<String, NodePlan> plans) {
+        this.file = file;
+        this.key = key;
+        this.plans = plans;
+    }
+
+    static PlanCache open(Path file, ClassLoader classLoader) {
+        String key = key(classLoader);
+        Map<String, NodePlan> plans = key == null ? new HashMap<String, NodePlan>() : read(file, key);
+        log.debug("Loaded {} node plans from [{}]", plans.size(), file);
+        return new PlanCache(file, key, plans);
+    }
+
+    synchronized List<UrlHolder> get(ClassLoaderNodeDefinition nodeDef) {
+        NodePlan plan = plans.get(nodeDef.getName());
+        if (plan == null) {
+            return null;
+        }
+        if (!plan.sources.equals(new ArrayList<>(nodeDef.getSources())) || !plan.isFresh()) {
+            log.debug("Plan of node [{}] is stale", nodeDef.getName());
+            plans.remove(nodeDef.getName());
+            dirty = true;
+            return null;
+        }
+        return new ArrayList<UrlHolder>(plan.holders);
+    }
+
+    synchronized void put(ClassLoaderNodeDefinition nodeDef, List<UrlHolder> holders) {
+        List<FileSourceHolder> fileHolders = new ArrayList<>(holders.size());
+        for (UrlHolder holder : holders) {
+            if (!(holder instanceof FileSourceHolder)) {
+                log.trace("Sources of node [{}] are not cacheable", nodeDef.getName());
+                dirty |= plans.remove(nodeDef.getName()) != null;
+                return;
+            }
+            fileHolders.add((FileSourceHolder) holder);
+        }
+        plans.put(nodeDef.getName(), NodePlan.create(new ArrayList<>(nodeDef.getSources()), fileHolders));
+        dirty = true;
+    }
+
+    synchronized void save() {
+        if (!dirty || key == null) {
+            return;
+        }
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    write(out);
+                }
+                FileUtil.moveReplacing(temp, file);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            dirty = false;
+            log.debug("Saved {} node plans to [{}]", plans.size(), file);
+        } catch (IOException e) {
+            log.warn("Can't save materialization plan to [{}]", file, e);
+        }
+    }
+
+    synchronized int size() {
+        return plans.size();
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(key);
+        out.writeInt(plans.size());
+        for (Entry<String, NodePlan> e : plans.entrySet()) {
+            out.writeUTF(e.getKey());
+            NodePlan plan = e.getValue();
+            out.writeInt(plan.sources.size());
+            for (String source : plan.sources) {
+                out.writeUTF(source);
+            }
+            out.writeInt(plan.holders.size());
+            for (FileSourceHolder holder : plan.holders) {
+                out.writeInt(holder.getURLs().size());
+                for (URL url : holder.getURLs()) {
+                    out.writeUTF(url.toString());
+                }
+                out.writeInt(holder.getWatchedDirectories().size());
+                for (Entry<String, Long> dir : holder.getWatchedDirectories().entrySet()) {
+                    out.writeUTF(dir.getKey());
+                    out.writeLong(dir.getValue());
+                }
+            }
+            out.writeInt(plan.files.size());
+            for (Entry<String, FileStamp> stamp : plan.files.entrySet()) {
+                out.writeUTF(stamp.getKey());
+                out.writeLong(stamp.getValue().lastModified);
+                out.writeLong(stamp.getValue().size);
+            }
+        }
+    }
+
+    private static Map<String, NodePlan> read(Path file, String key) {
+        Map<String, NodePlan> plans = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.warn("Materialization plan [{}] has unsupported format. Ignoring it", file);
+                return plans;
+            }
+            if (!key.equals(in.readUTF())) {
+                log.debug("Materialization plan [{}] was recorded for another environment. Ignoring it", file);
+                return plans;
+            }
+            int nodeCount = in.readInt();
+            for (int i = 0; i < nodeCount; i++) {
+                String name = in.readUTF();
+                List<String> sources = new ArrayList<>();
+                for (int j = in.readInt(); j > 0; j--) {
+                    sources.add(in.readUTF());
+                }
+                List<FileSourceHolder> holders = new ArrayList<>();
+                for (int j = in.readInt(); j > 0; j--) {
+                    List<URL> urls = new ArrayList<>();
+                    for (int k = in.readInt(); k > 0; k--) {
+                        urls.add(new URL(in.readUTF()));
+                    }
+                    Map<String, Long> watched = new LinkedHashMap<>();
+                    for (int k = in.readInt(); k > 0; k--) {
+                        watched.put(in.readUTF(), in.readLong());
+                    }
+                    holders.add(new FileSourceHolder(urls, watched));
+                }
+                Map<String, FileStamp> files = new LinkedHashMap<>();
+                for (int j = in.readInt(); j > 0; j--) {
+                    files.put(in.readUTF(), new FileStamp(in.readLong(), in.readLong()));
+                }
+                plans.put(name, new NodePlan(sources, holders, files));
+            }
+            return plans;
+        } catch (NoSuchFileException e) {
+            log.debug("Materialization plan [{}] does not exist yet", file);
+        } catch (IOException e) {
+            log.warn("Can't read materialization plan [{}]. Ignoring it", file, e);
+        }
+        return new HashMap<>();
+    }
+
+    private static String key(ClassLoader classLoader) {
+        StringBuilder key = new StringBuilder();
+        key.append(new File("").getAbsolutePath()).append('\n').append(System.getProperty("user.home"));
+        try {
+            for (URL services : Collections.list(classLoader.getResources(RESOLVER_SERVICES))) {
+                key.append('\n').append(services);
+            }
+        } catch (IOException e) {
+            log.warn("Can't list source resolver services. Materialization plan is disabled", e);
+            return null;
+        }
+        return key.toString();
+    }
+
+    @RequiredArgsConstructor
+    private static class NodePlan {
+        private final List<String> sources;
+        private final List<FileSourceHolder> holders;
+        private final Map<String, FileStamp> files;
+
+        static NodePlan create(List<String> sources, List<FileSourceHolder> holders) {
+            Map<String, FileStamp> files = new LinkedHashMap<>();
+            for (FileSourceHolder holder : holders) {
+                for (URL url : holder.getURLs()) {
+                    File file = asFile(url);
+                    if (file != null) {
+                        files.put(file.getPath(), FileStamp.of(file));
+                    }
+                }
+                for (String dir : holder.getWatchedDirectories().keySet()) {
+                    files.put(dir, FileStamp.of(new File(dir)));
+                }
+            }
+            return new NodePlan(sources, holders, files);
+        }
+
+        boolean isFresh() {
+            for (FileSourceHolder holder : holders) {
+                for (Entry<String, Long> dir : holder.getWatchedDirectories().entrySet()) {
+                    if (new File(dir.getKey()).lastModified() != dir.getValue()) {
+                        return false;
+                    }
+                }
+            }
+            for (Entry<String, FileStamp> file : files.entrySet()) {
+                if (!file.getValue().equals(FileStamp.of(new File(file.getKey())))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static File asFile(URL url) {
+            if (!"file".equals(url.getProtocol())) {
+                return null;
+            }
+            try {
+                return new File(url.toURI());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class FileStamp {
+        private final long lastModified;
+        private final long size;
+
+        static FileStamp of(File file) {
+            return new FileStamp(file.lastModified(), file.length());
+        }
+    }
+}
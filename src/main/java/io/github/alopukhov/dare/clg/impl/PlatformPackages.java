@@ -0,0 +1,78 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+@Slf4j
+final class PlatformPackages {
+    private static final String JAVA_PREFIX = "java.";
+    private final Set<String> packages;
+    private final ClassLoader platformLoader;
+
+    private PlatformPackages(Set<String> packages, ClassLoader platformLoader) {
+        this.packages = packages;
+        this.platformLoader = platformLoader;
+    }
+
+    static PlatformPackages get() {
+        return Holder.INSTANCE;
+    }
+
+    boolean contains(String className) {
+        if (className.startsWith(JAVA_PREFIX)) {
+            return true;
+        }
+        int lastDot = className.lastIndexOf('.');
+        return lastDot > 0 && packages.contains(className.substring(0, lastDot));
+    }
+
+    Class<?> load(String className) {
+        try {
+            return Class.forName(className, false, platformLoader);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    int size() {
+        return packages.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PlatformPackages detect() {
+        Class<?> layerClass;
+        try {
+            layerClass = Class.forName("java.lang.ModuleLayer");
+        } catch (ClassNotFoundException e) {
+            log.debug("Module layers are not available. Only java.* packages are treated as platform packages");
+            return new PlatformPackages(Collections.<String>emptySet(), null);
+        }
+        try {
+            Class<?> moduleClass = Class.forName("java.lang.Module");
+            Method getClassLoader = moduleClass.getMethod("getClassLoader");
+            Method getPackages = moduleClass.getMethod("getPackages");
+            ClassLoader platformLoader = (ClassLoader) ClassLoader.class.getMethod("getPlatformClassLoader").invoke(null);
+            Object bootLayer = layerClass.getMethod("boot").invoke(null);
+            Set<String> packages = new HashSet<>();
+            for (Object module : (Set<?>) layerClass.getMethod("modules").invoke(bootLayer)) {
+                Object loader = getClassLoader.invoke(module);
+                if (loader == null || loader == platformLoader) {
+                    packages.addAll((Set<String>) getPackages.invoke(module));
+                }
+            }
+            log.debug("Detected {} boot and platform layer packages", packages.size());
+            return new PlatformPackages(packages, platformLoader);
+        } catch (Exception e) {
+            log.warn("Can't detect boot layer packages. Only java.* packages are treated as platform packages", e);
+            return new PlatformPackages(Collections.<String>emptySet(), null);
+        }
+    }
+
+    private static class Holder {
+        private static final PlatformPackages INSTANCE = detect();
+    }
+}
@@ -0,0 +1,187 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.spi.ClassLoadingListener;
+import io.github.alopukhov.dare.clg.spi.ClassLoadingListenerAdapter;
+import io.github.alopukhov.dare.clg.spi.ResourceHandler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+@Slf4j
+class PreloadProfile implements ResourceHandler {
+    private static final String HEADER = "# dare-clg preload profile";
+    private static final char SEPARATOR = '\t';
+    private static final int CHUNK_SIZE = 32;
+    private final Path file;
+    private final Queue<String> recorded = new ConcurrentLinkedQueue<>();
+    private final Thread shutdownHook;
+    private ExecutorService preloader;
+    private boolean closed;
+
+    PreloadProfile(Path file) {
+        this.file = file;
+        this.shutdownHook = new Thread("clg-preload-profile-writer") {
+            @Override
+            public void run() {
+                write();
+            }
+        };
+    }
+
+    ClassLoadingListener recorder() {
+        return new ClassLoadingListenerAdapter() {
+            @Override
+            public void classDefined(String nodeName, Class<?> definedClass) {
+                recorded.add(nodeName + SEPARATOR + definedClass.getName());
+            }
+        };
+    }
+
+    static Loaders loaders(final Map<String, ? extends ClassLoader> loaders) {
+        return new Loaders() {
+            @Override
+            public ClassLoader loaderOf(String nodeName) {
+                return loaders.get(nodeName);
+            }
+        };
+    }
+
+    synchronized void start(Loaders loaders) {
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        if (!Files.isRegularFile(file)) {
+            log.debug("Preload profile [{}] does not exist yet. Recording only", file);
+            return;
+        }
+        List<Entry> entries;
+        try {
+            entries = read(file);
+        } catch (IOException e) {
+            log.warn("Can't read preload profile [{}]. Skipping preloading", file, e);
+            return;
+        }
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(),
+                (entries.size() + CHUNK_SIZE - 1) / CHUNK_SIZE));
+        log.debug("Preloading {} classes from profile [{}] using {} threads", entries.size(), file, threads);
+        preloader = Executors.newFixedThreadPool(threads, new PreloadThreadFactory());
+        for (int from = 0; from < entries.size(); from += CHUNK_SIZE) {
+            preloader.execute(new PreloadTask(entries.subList(from, Math.min(entries.size(), from + CHUNK_SIZE)), loaders));
+        }
+        preloader.shutdown();
+    }
+
+    synchronized boolean awaitPreloading(long timeout, TimeUnit unit) throws InterruptedException {
+        return preloader == null || preloader.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (preloader != null) {
+                preloader.shutdownNow();
+            }
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            log.trace("Shutdown is in progress. Profile is written by shutdown hook");
+            return;
+        }
+        write();
+    }
+
+    private synchronized void write() {
+        Path dir = file.toAbsolutePath().getParent();
+        try {
+            Files.createDirectories(dir);
+            Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(temp, UTF_8)) {
+                    writer.write(HEADER);
+                    writer.newLine();
+                    for (String line : recorded) {
+                        writer.write(line);
+                        writer.newLine();
+                    }
+                }
+                FileUtil.moveReplacing(temp, file);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            log.debug("Preload profile [{}] written with {} classes", file, recorded.size());
+        } catch (IOException e) {
+            log.warn("Can't write preload profile [{}]", file, e);
+        }
+    }
+
+    static List<Entry> read(Path file) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                int separator = line.indexOf(SEPARATOR);
+                if (line.isEmpty() || line.charAt(0) == '#' || separator < 0) {
+                    continue;
+                }
+                entries.add(new Entry(line.substring(0, separator), line.substring(separator + 1).trim()));
+            }
+        }
+        return entries;
+    }
+
+    interface Loaders {
+        ClassLoader loaderOf(String nodeName);
+    }
+
+    @RequiredArgsConstructor
+    static class Entry {
+        private final String nodeName;
+        private final String className;
+    }
+
+    @RequiredArgsConstructor
+    private static class PreloadTask implements Runnable {
+        private final List<Entry> entries;
+        private final Loaders loaders;
+
+        @Override
+        public void run() {
+            for (Entry entry : entries) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                ClassLoader loader = loaders.loaderOf(entry.nodeName);
+                if (loader == null) {
+                    continue;
+                }
+                try {
+                    Class.forName(entry.className, false, loader);
+                } catch (ClassNotFoundException | LinkageError e) {
+                    log.trace("Can't preload class [{}] in node [{}]: {}", entry.className, entry.nodeName, e.toString());
+                }
+            }
+        }
+    }
+
+    private static class PreloadThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "clg-preload-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
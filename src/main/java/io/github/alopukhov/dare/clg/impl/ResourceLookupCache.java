@@ -0,0 +1,104 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import lombok.Getter;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+class ResourceLookupCache {
+    private final int maxSize;
+    private final ConcurrentMap<String, Result> results;
+    private final List<String> slots;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile int generation;
+    private int hand;
+
+    ResourceLookupCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.results = new ConcurrentHashMap<>(Math.min(maxSize, 256));
+        this.slots = new ArrayList<>(Math.min(maxSize, 256));
+    }
+
+    Result get(String name) {
+        Result result = results.get(name);
+        if (result != null) {
+            result.touch();
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return result;
+    }
+
+    int generation() {
+        return generation;
+    }
+
+    synchronized void put(String name, URL url, int lookupGeneration) {
+        if (lookupGeneration != generation || results.put(name, new Result(url)) != null) {
+            return;
+        }
+        if (slots.size() < maxSize) {
+            slots.add(name);
+        } else {
+            slots.set(evictSlot(), name);
+        }
+    }
+
+    synchronized void invalidate() {
+        generation++;
+        results.clear();
+        slots.clear();
+        hand = 0;
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    int size() {
+        return results.size();
+    }
+
+    private int evictSlot() {
+        while (true) {
+            int slot = hand;
+            hand = (hand + 1) % slots.size();
+            Result result = results.get(slots.get(slot));
+            if (result != null && result.referenced) {
+                result.referenced = false;
+            } else {
+                results.remove(slots.get(slot));
+                return slot;
+            }
+        }
+    }
+
+    static class Result {
+        @Getter
+        private final URL url;
+        private volatile boolean referenced;
+
+        Result(URL url) {
+            this.url = url;
+        }
+
+        void touch() {
+            if (!referenced) {
+                referenced = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoadingStrategy;
+import io.github.alopukhov.dare.clg.impl.BaseStrategy.LazyStages;
+import io.github.alopukhov.dare.clg.impl.BaseStrategy.SingleHelper;
+import io.github.alopukhov.dare.clg.impl.ImportMatcher.Rule;
+import lombok.EqualsAndHashCode;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Enumeration;
+
+@EqualsAndHashCode(of = "expression")
+final class RoutingStrategy implements ClassLoadingStrategy {
+    private static final String CATCH_ALL = "**";
+    private static final char RULE_SEPARATOR = ';';
+    private static final char STAGES_SEPARATOR = '=';
+    private final String expression;
+    private final ImportMatcher<SingleHelper[]> classRoutes;
+    private final ImportMatcher<SingleHelper[]> resourceRoutes;
+
+    private RoutingStrategy(String expression, ImportMatcher<SingleHelper[]> classRoutes,
+                            ImportMatcher<SingleHelper[]> resourceRoutes) {
+        this.expression = expression;
+        this.classRoutes = classRoutes;
+        this.resourceRoutes = resourceRoutes;
+    }
+
+    static boolean isExpression(String name) {
+        return name.indexOf(STAGES_SEPARATOR) >= 0;
+    }
+
+    static RoutingStrategy parse(String expression) {
+        ImportMatcher.Builder<SingleHelper[]> classRoutes = new ImportMatcher.Builder<>('.');
+        ImportMatcher.Builder<SingleHelper[]> resourceRoutes = new ImportMatcher.Builder<>('/');
+        boolean hasCatchAll = false;
+        for (String rule : expression.split(String.valueOf(RULE_SEPARATOR))) {
+            rule = rule.trim();
+            if (rule.isEmpty()) {
+                continue;
+            }
+            int separator = rule.lastIndexOf(STAGES_SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Routing rule '" + rule + "' has no stages");
+            }
+            SingleHelper[] stages = parseStages(rule.substring(separator + 1).trim(), rule);
+            for (String pattern : rule.substring(0, separator).split(",")) {
+                pattern = pattern.trim();
+                if (pattern.isEmpty()) {
+                    throw new IllegalArgumentException("Routing rule '" + rule + "' has empty package pattern");
+                }
+                hasCatchAll |= CATCH_ALL.equals(pattern);
+                classRoutes.add(ImportItem.createClassImport(pattern), stages);
+                resourceRoutes.add(ImportItem.createResourceImport(toResourcePattern(pattern)), stages);
+            }
+        }
+        if (!hasCatchAll) {
+            throw new IllegalArgumentException("Routing expression '" + expression.trim() + "' has no '" + CATCH_ALL
+                    + " = ...' rule for names that match no other rule");
+        }
+        return new RoutingStrategy(expression.trim(), classRoutes.build(), resourceRoutes.build());
+    }
+
+    @Override
+    public Class<?> loadClass(String className, LoadingUtil loadingUtil) {
+        for (SingleHelper stage : route(classRoutes, className)) {
+            Class<?> clazz = stage.loadClass(className, loadingUtil);
+            if (clazz != null) {
+                return clazz;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public URL getResource(String name, LoadingUtil loadingUtil) {
+        for (SingleHelper stage : route(resourceRoutes, name)) {
+            URL resource = stage.getResource(name, loadingUtil);
+            if (resource != null) {
+                return resource;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Enumeration<URL> getResources(String name, LoadingUtil loadingUtil) throws IOException {
+        SingleHelper[] stages = route(resourceRoutes, name);
+        Enumeration<URL> first = stages[0].getResources(name, loadingUtil);
+        SingleHelper[] remaining = Arrays.copyOfRange(stages, 1, stages.length);
+        return new DistinctUrlEnumeration(new CompoundEnumeration<>(new LazyStages(first, name, loadingUtil, remaining)));
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private static SingleHelper[] route(ImportMatcher<SingleHelper[]> routes, String name) {
+        int lastDelimiter = routes.lastDelimiter(name);
+        for (Rule<SingleHelper[]> rule : routes.candidates(name)) {
+            if (rule.accepts(name.length(), lastDelimiter)) {
+                return rule.getValue();
+            }
+        }
+        throw new IllegalStateException("Routing expression has no rule for " + name);
+    }
+
+    private static SingleHelper[] parseStages(String stages, String rule) {
+        if (stages.isEmpty() || stages.length() > SingleHelper.values().length) {
+            throw new IllegalArgumentException("Routing rule '" + rule + "' must list one to three of P, S and I");
+        }
+        SingleHelper[] result = new SingleHelper[stages.length()];
+        for (int i = 0; i < result.length; i++) {
+            SingleHelper stage;
+            try {
+                stage = SingleHelper.valueOf(String.valueOf(Character.toUpperCase(stages.charAt(i))));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Routing rule '" + rule + "' has unknown stage " + stages.charAt(i));
+            }
+            for (int j = 0; j < i; j++) {
+                if (result[j] == stage) {
+                    throw new IllegalArgumentException("Routing rule '" + rule + "' repeats stage " + stage);
+                }
+            }
+            result[i] = stage;
+        }
+        return result;
+    }
+
+    private static String toResourcePattern(String classPattern) {
+        String path = classPattern.replace('.', '/');
+        return path.endsWith("*") ? path : path + ".class";
+    }
+}
@@ -1,15 +1,39 @@
 package io.github.alopukhov.dare.clg.impl;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 
-@Getter
-@AllArgsConstructor
 class TargetImportItem {
     @Setter
-    private ClassLoader target;
+    private volatile ClassLoader target;
+    @Getter
     private final ImportItem importItem;
-}
+    private final String targetName;
+    private final NodeLoaders loaders;
+
+    TargetImportItem(ClassLoader target, ImportItem importItem) {
+        this.target = target;
+        this.importItem = importItem;
+        this.targetName = null;
+        this.loaders = null;
+    }
 
+    TargetImportItem(ImportItem importItem, String targetName, NodeLoaders loaders) {
+        this.importItem = importItem;
+        this.targetName = targetName;
+        this.loaders = loaders;
+    }
 
+    ClassLoader getTarget() {
+        ClassLoader result = target;
+        if (result == null && loaders != null) {
+            result = loaders.getClassLoader(targetName);
+            target = result;
+        }
+        return result;
+    }
+
+    interface NodeLoaders {
+        ClassLoader getClassLoader(String nodeName);
+    }
+}
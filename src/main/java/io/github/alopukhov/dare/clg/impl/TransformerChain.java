@@ -0,0 +1,141 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.spi.BytecodeTransformer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+@Slf4j
+class TransformerChain {
+    private static final byte[] UNCHANGED = new byte[0];
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private final List<BytecodeTransformer> transformers;
+    private final byte[] chainId;
+    private final Path cacheDirectory;
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong transformations = new AtomicLong();
+
+    private TransformerChain(List<BytecodeTransformer> transformers, Path cacheDirectory) {
+        this.transformers = transformers;
+        this.cacheDirectory = cacheDirectory;
+        StringBuilder id = new StringBuilder();
+        for (BytecodeTransformer transformer : transformers) {
+            id.append(transformer.getClass().getName()).append('@').append(transformer.getVersion()).append(';');
+        }
+        this.chainId = id.toString().getBytes(UTF_8);
+    }
+
+    static TransformerChain create(List<BytecodeTransformer> transformers, Path cacheDirectory) {
+        if (transformers.isEmpty()) {
+            return null;
+        }
+        return new TransformerChain(new ArrayList<>(transformers), cacheDirectory);
+    }
+
+    byte[] apply(String className, byte[] classBytes) {
+        Path cached = cacheDirectory == null ? null : cacheFile(className, classBytes);
+        if (cached != null) {
+            byte[] result = readCached(cached);
+            if (result != null) {
+                cacheHits.incrementAndGet();
+                return result.length == 0 ? classBytes : result;
+            }
+        }
+        byte[] transformed = transform(className, classBytes);
+        if (transformed == null) {
+            return classBytes;
+        }
+        if (cached != null) {
+            writeCached(cached, transformed == classBytes ? UNCHANGED : transformed);
+        }
+        return transformed;
+    }
+
+    long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    long getTransformations() {
+        return transformations.get();
+    }
+
+    private byte[] transform(String className, byte[] classBytes) {
+        transformations.incrementAndGet();
+        byte[] current = classBytes;
+        for (BytecodeTransformer transformer : transformers) {
+            try {
+                byte[] result = transformer.transform(className, current);
+                if (result != null) {
+                    current = result;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Transformer [{}] failed on class [{}]. Defining original bytes", transformer, className, e);
+                return null;
+            }
+        }
+        return current;
+    }
+
+    private Path cacheFile(String className, byte[] classBytes) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(chainId);
+        digest.update(className.getBytes(UTF_8));
+        digest.update((byte) 0);
+        String hash = toHex(digest.digest(classBytes));
+        return cacheDirectory.resolve(hash.substring(0, 2)).resolve(hash.substring(2));
+    }
+
+    private static byte[] readCached(Path file) {
+        try {
+            return Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.debug("Can't read cached transformation [{}]", file, e);
+            return null;
+        }
+    }
+
+    private static void writeCached(Path file, byte[] bytes) {
+        Path temp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            Files.write(temp, bytes);
+            FileUtil.moveReplacing(temp, file);
+        } catch (IOException e) {
+            log.debug("Can't cache transformation [{}]", file, e);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException deleteException) {
+                    log.trace("Can't delete temporary file [{}]", temp, deleteException);
+                }
+            }
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[2 * i + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+}
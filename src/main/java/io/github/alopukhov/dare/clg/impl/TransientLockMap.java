@@ -0,0 +1,66 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class TransientLockMap {
+    private final ConcurrentMap<String, NameLock> locks = new ConcurrentHashMap<>();
+
+    NameLock acquire(String name) {
+        for (;;) {
+            NameLock lock = locks.get(name);
+            if (lock == null) {
+                NameLock created = new NameLock(name);
+                lock = locks.putIfAbsent(name, created);
+                if (lock == null) {
+                    return created;
+                }
+            }
+            if (lock.retain()) {
+                return lock;
+            }
+            locks.remove(name, lock);
+        }
+    }
+
+    void release(NameLock lock) {
+        if (lock.release()) {
+            locks.remove(lock.name, lock);
+        }
+    }
+
+    int size() {
+        return locks.size();
+    }
+
+    static final class NameLock {
+        private final String name;
+        private final AtomicInteger holders = new AtomicInteger(1);
+
+        private NameLock(String name) {
+            this.name = name;
+        }
+
+        private boolean retain() {
+            for (;;) {
+                int current = holders.get();
+                if (current == 0) {
+                    return false;
+                }
+                if (holders.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private boolean release() {
+            return holders.decrementAndGet() == 0;
+        }
+
+        @Override
+        public String toString() {
+            return "NameLock(" + name + ")";
+        }
+    }
+}
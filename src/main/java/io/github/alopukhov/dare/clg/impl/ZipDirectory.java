@@ -0,0 +1,252 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+class ZipDirectory {
+    static final int STORED = 0;
+    static final int DEFLATED = 8;
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int CEN_SIGNATURE = 0x02014b50;
+    private static final int LOC_SIGNATURE = 0x04034b50;
+    private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final int EOCD_SIZE = 22;
+    private static final int CEN_SIZE = 46;
+    private static final int LOC_SIZE = 30;
+    private static final int ZIP64_EOCD_SIZE = 56;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int MAX_COMMENT = 0xffff;
+    private static final int ENCRYPTED_FLAG = 1;
+    private final ByteBuffer archive;
+    private final String[] names;
+    private final int[] headerOffsets;
+    private final int[] compressedSizes;
+    private final int[] sizes;
+    private final int[] methods;
+
+    private ZipDirectory(ByteBuffer archive, String[] names, int[] headerOffsets, int[] compressedSizes, int[] sizes, int[] methods) {
+        this.archive = archive;
+        this.names = names;
+        this.headerOffsets = headerOffsets;
+        this.compressedSizes = compressedSizes;
+        this.sizes = sizes;
+        this.methods = methods;
+    }
+
+    static ZipDirectory parse(ByteBuffer archive) throws IOException {
+        ByteBuffer buf = archive.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        buf.clear();
+        int eocd = findEndOfCentralDirectory(buf);
+        long entries = buf.getShort(eocd + 10) & 0xffff;
+        long cenSize = buf.getInt(eocd + 12) & 0xffffffffL;
+        long cenOffset = buf.getInt(eocd + 16) & 0xffffffffL;
+        int cenEnd = eocd;
+        int locator = eocd - ZIP64_LOCATOR_SIZE;
+        if (locator >= 0 && buf.getInt(locator) == ZIP64_LOCATOR_SIGNATURE) {
+            long zip64Eocd = buf.getLong(locator + 8);
+            if (zip64Eocd < 0 || zip64Eocd + ZIP64_EOCD_SIZE > locator || buf.getInt((int) zip64Eocd) != ZIP64_EOCD_SIGNATURE) {
+                throw new ZipException("Invalid ZIP64 end of central directory");
+            }
+            entries = buf.getLong((int) zip64Eocd + 32);
+            cenSize = buf.getLong((int) zip64Eocd + 40);
+            cenOffset = buf.getLong((int) zip64Eocd + 48);
+            cenEnd = (int) zip64Eocd;
+        }
+        if (entries < 0 || entries > Integer.MAX_VALUE || cenSize < 0 || cenOffset < 0 || cenOffset + cenSize > cenEnd) {
+            throw new ZipException("Invalid central directory bounds");
+        }
+        int count = (int) entries;
+        final String[] unsortedNames = new String[count];
+        int[] offsets = new int[count];
+        int[] csizes = new int[count];
+        int[] usizes = new int[count];
+        int[] unsortedMethods = new int[count];
+        int pos = (int) cenOffset;
+        for (int i = 0; i < count; i++) {
+            if (pos + CEN_SIZE > cenEnd || buf.getInt(pos) != CEN_SIGNATURE) {
+                throw new ZipException("Invalid central directory header at " + pos);
+            }
+            int flags = buf.getShort(pos + 8) & 0xffff;
+            int method = buf.getShort(pos + 10) & 0xffff;
+            long csize = buf.getInt(pos + 20) & 0xffffffffL;
+            long size = buf.getInt(pos + 24) & 0xffffffffL;
+            int nameLength = buf.getShort(pos + 28) & 0xffff;
+            int extraLength = buf.getShort(pos + 30) & 0xffff;
+            int commentLength = buf.getShort(pos + 32) & 0xffff;
+            long offset = buf.getInt(pos + 42) & 0xffffffffL;
+            if ((flags & ENCRYPTED_FLAG) != 0) {
+                throw new ZipException("Encrypted entries are not supported");
+            }
+            if (method != STORED && method != DEFLATED) {
+                throw new ZipException("Unsupported compression method " + method);
+            }
+            if (size == 0xffffffffL || csize == 0xffffffffL || offset == 0xffffffffL) {
+                long[] values = {size, csize, offset};
+                readZip64Extra(buf, pos + CEN_SIZE + nameLength, extraLength, values);
+                size = values[0];
+                csize = values[1];
+                offset = values[2];
+            }
+            if (csize > Integer.MAX_VALUE || size > Integer.MAX_VALUE) {
+                throw new ZipException("Entries larger than 2 GB are not supported at " + pos);
+            }
+            if (csize < 0 || size < 0 || offset < 0 || offset >= cenOffset) {
+                throw new ZipException("Invalid entry sizes or offset at " + pos);
+            }
+            byte[] nameBytes = new byte[nameLength];
+            ByteBuffer nameBuf = buf.duplicate();
+            nameBuf.position(pos + CEN_SIZE);
+            nameBuf.get(nameBytes);
+            unsortedNames[i] = new String(nameBytes, UTF_8);
+            offsets[i] = (int) offset;
+            csizes[i] = (int) csize;
+            usizes[i] = (int) size;
+            unsortedMethods[i] = method;
+            pos += CEN_SIZE + nameLength + extraLength + commentLength;
+        }
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                int result = unsortedNames[o1].compareTo(unsortedNames[o2]);
+                return result != 0 ? result : Integer.compare(o1, o2);
+            }
+        });
+        String[] names = new String[count];
+        int[] headerOffsets = new int[count];
+        int[] compressedSizes = new int[count];
+        int[] sizes = new int[count];
+        int[] methods = new int[count];
+        for (int i = 0; i < count; i++) {
+            int j = order[i];
+            names[i] = unsortedNames[j];
+            headerOffsets[i] = offsets[j];
+            compressedSizes[i] = csizes[j];
+            sizes[i] = usizes[j];
+            methods[i] = unsortedMethods[j];
+        }
+        return new ZipDirectory(buf, names, headerOffsets, compressedSizes, sizes, methods);
+    }
+
+    List<String> names() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    int indexOf(String name) {
+        int i = Arrays.binarySearch(names, name);
+        if (i < 0) {
+            return -1;
+        }
+        while (i > 0 && names[i - 1].equals(name)) {
+            i--;
+        }
+        return i;
+    }
+
+    int getMethod(int index) {
+        return methods[index];
+    }
+
+    int getSize(int index) {
+        return sizes[index];
+    }
+
+    ByteBuffer slice(int index) throws IOException {
+        int pos = headerOffsets[index];
+        if (pos + LOC_SIZE > archive.limit() || archive.getInt(pos) != LOC_SIGNATURE) {
+            throw new ZipException("Invalid local header for entry " + names[index]);
+        }
+        int nameLength = archive.getShort(pos + 26) & 0xffff;
+        int extraLength = archive.getShort(pos + 28) & 0xffff;
+        int start = pos + LOC_SIZE + nameLength + extraLength;
+        int end = start + compressedSizes[index];
+        if (end > archive.limit()) {
+            throw new ZipException("Truncated entry " + names[index]);
+        }
+        ByteBuffer data = archive.duplicate();
+        data.limit(end).position(start);
+        return data.slice();
+    }
+
+    byte[] read(int index) throws IOException {
+        ByteBuffer data = slice(index);
+        if (methods[index] == STORED) {
+            byte[] bytes = new byte[data.remaining()];
+            data.get(bytes);
+            return bytes;
+        }
+        byte[] compressed = new byte[data.remaining() + 1];
+        data.get(compressed, 0, compressed.length - 1);
+        byte[] bytes = new byte[sizes[index]];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            int n = 0;
+            while (n < bytes.length && !inflater.finished()) {
+                int inflated = inflater.inflate(bytes, n, bytes.length - n);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += inflated;
+            }
+            if (n != bytes.length) {
+                throw new ZipException("Invalid entry size for " + names[index]);
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Can't inflate entry " + names[index] + ": " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+        return bytes;
+    }
+
+    private static void readZip64Extra(ByteBuffer buf, int pos, int length, long[] values) throws ZipException {
+        int end = pos + length;
+        while (pos + 4 <= end) {
+            int id = buf.getShort(pos) & 0xffff;
+            int size = buf.getShort(pos + 2) & 0xffff;
+            pos += 4;
+            if (pos + size > end) {
+                break;
+            }
+            if (id == ZIP64_EXTRA_ID) {
+                int field = pos;
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] == 0xffffffffL) {
+                        if (field + 8 > pos + size) {
+                            throw new ZipException("Truncated ZIP64 extra field at " + pos);
+                        }
+                        values[i] = buf.getLong(field);
+                        field += 8;
+                    }
+                }
+                return;
+            }
+            pos += size;
+        }
+        throw new ZipException("Missing ZIP64 extra field at " + pos);
+    }
+
+    private static int findEndOfCentralDirectory(ByteBuffer buf) throws ZipException {
+        int limit = buf.limit();
+        int lowest = Math.max(0, limit - EOCD_SIZE - MAX_COMMENT);
+        for (int pos = limit - EOCD_SIZE; pos >= lowest; pos--) {
+            if (buf.getInt(pos) == EOCD_SIGNATURE && pos + EOCD_SIZE + (buf.getShort(pos + 20) & 0xffff) == limit) {
+                return pos;
+            }
+        }
+        throw new ZipException("End of central directory not found");
+    }
+}
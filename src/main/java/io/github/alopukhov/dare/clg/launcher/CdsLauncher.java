@@ -0,0 +1,312 @@
+package io.github.alopukhov.dare.clg.launcher;
+
+import io.github.alopukhov.dare.clg.ClassLoaderGraphDefinition;
+import io.github.alopukhov.dare.clg.ClassLoaderNodeDefinition;
+import io.github.alopukhov.dare.clg.ClassLoadingStrategy;
+import io.github.alopukhov.dare.clg.ImportDefinition;
+import io.github.alopukhov.dare.clg.impl.DefaultSourceResolver;
+import io.github.alopukhov.dare.clg.spi.BytecodeTransformer;
+import io.github.alopukhov.dare.clg.spi.SourceResolver;
+import io.github.alopukhov.dare.clg.spi.UrlHolder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+@Slf4j
+@RequiredArgsConstructor
+class CdsLauncher {
+    static final String CHILD_PROPERTY = "dare.clg.cds.child";
+    static final String CLASS_LIST_PROPERTY = "dare.clg.cds.classlist";
+    private static final int DYNAMIC_ARCHIVE_VERSION = 13;
+    private static final int AUTO_ARCHIVE_VERSION = 19;
+    private static final List<String> CDS_OPTIONS = Arrays.asList(
+            "-XX:SharedArchiveFile", "-XX:ArchiveClassesAtExit", "-XX:+AutoCreateSharedArchive", "-Xshare");
+    private static final List<String> PARENT_ONLY_OPTIONS = Arrays.asList(
+            "-agentlib:", "-agentpath:", "-javaagent:", "-Xrunjdwp", "-Xdebug", "-Dcom.sun.management.jmxremote");
+    private static final SourceResolver SOURCE_RESOLVER = new DefaultSourceResolver();
+    private final LaunchInfo launchInfo;
+    private final String configLocation;
+
+    static boolean isChild() {
+        return Boolean.getBoolean(CHILD_PROPERTY);
+    }
+
+    Integer launch(String[] args) {
+        int feature = featureVersion(System.getProperty("java.specification.version"));
+        if (feature < DYNAMIC_ARCHIVE_VERSION) {
+            log.info("Java {} does not support dynamic CDS archives. Running without CDS", feature);
+            return null;
+        }
+        List<String> jvmArguments = ManagementFactory.getRuntimeMXBean().getInputArguments();
+        for (String argument : jvmArguments) {
+            for (String option : CDS_OPTIONS) {
+                if (argument.startsWith(option)) {
+                    log.info("JVM is started with CDS option [{}]. Launcher CDS mode is ignored", argument);
+                    return null;
+                }
+            }
+        }
+        try {
+            Path archive = archiveFile();
+            Files.createDirectories(archive.getParent());
+            if (launchInfo.getCdsMode() == CdsMode.TRAIN) {
+                Files.deleteIfExists(archive);
+                Files.deleteIfExists(classListFile(archive));
+            }
+            List<String> command = childCommand(jvmArguments, archive, Files.isRegularFile(archive), feature, args);
+            log.info("Launching child JVM with CDS archive [{}]", archive);
+            log.debug("Child JVM command: {}", command);
+            return waitFor(new ProcessBuilder(command).inheritIO().start());
+        } catch (IOException e) {
+            log.warn("Can't launch child JVM with CDS archive. Running without CDS", e);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for child JVM");
+            return 1;
+        }
+    }
+
+    List<String> childCommand(List<String> jvmArguments, Path archive, boolean archiveExists, int feature, String[] args) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (String argument : jvmArguments) {
+            if (isParentOnly(argument)) {
+                log.debug("JVM option [{}] is not passed to child JVM", argument);
+            } else {
+                command.add(argument);
+            }
+        }
+        if (feature >= AUTO_ARCHIVE_VERSION && launchInfo.getCdsMode() == CdsMode.AUTO) {
+            command.add("-XX:+AutoCreateSharedArchive");
+            command.add("-XX:SharedArchiveFile=" + archive);
+        } else if (archiveExists) {
+            command.add("-XX:SharedArchiveFile=" + archive);
+            addClassList(command, archive, true);
+        } else {
+            command.add("-XX:ArchiveClassesAtExit=" + archive);
+            addClassList(command, archive, false);
+        }
+        command.add("-D" + CHILD_PROPERTY + "=true");
+        if (configLocation != null) {
+            command.add("-D" + Launcher.LAUNCH_CONFIG_LOCATION + "=" + configLocation);
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Launcher.class.getName());
+        command.addAll(Arrays.asList(args));
+        return command;
+    }
+
+    private void addClassList(List<String> command, Path archive, boolean replay) {
+        if (launchInfo.getGraphDefinition().getPreloadProfile() != null) {
+            return;
+        }
+        Path classList = classListFile(archive);
+        if (replay && !Files.isRegularFile(classList)) {
+            log.debug("CDS class list [{}] does not exist. Archive run does not preload classes", classList);
+            return;
+        }
+        command.add("-D" + CLASS_LIST_PROPERTY + "=" + classList);
+    }
+
+    private static boolean isParentOnly(String argument) {
+        for (String option : PARENT_ONLY_OPTIONS) {
+            if (argument.startsWith(option)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    Path archiveFile() throws IOException {
+        Path directory = launchInfo.getCdsArchiveDirectory() == null ?
+                Paths.get(System.getProperty("java.io.tmpdir"), "dare-clg-cds") : launchInfo.getCdsArchiveDirectory();
+        return directory.toAbsolutePath().resolve("clg-" + fingerprint() + ".jsa");
+    }
+
+    static Path classListFile(Path archive) {
+        return archive.resolveSibling(archive.getFileName().toString().replaceFirst("\\.jsa$", "") + ".classes");
+    }
+
+    String fingerprint() throws IOException {
+        Fingerprint fingerprint = new Fingerprint();
+        fingerprint.add(System.getProperty("java.vm.version")).add(System.getProperty("java.home"));
+        for (String classpathEntry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            fingerprint.addFile(classpathEntry);
+        }
+        fingerprint.add(launchInfo.getMainNode()).add(launchInfo.getMainClassname());
+        ClassLoaderGraphDefinition graph = launchInfo.getGraphDefinition();
+        fingerprint.add(strategyKey(graph.getDefaultLoadingStrategy()))
+                .add(String.valueOf(graph.getPreloadProfile()))
+                .add(String.valueOf(graph.getDownloadCacheDirectory()))
+                .add(String.valueOf(graph.getPlanCacheFile()))
+                .add(String.valueOf(graph.getTransformCacheDirectory()))
+                .add(String.valueOf(graph.isJmxEnabled()))
+                .add(String.valueOf(graph.isPlatformFastPathEnabled()))
+                .add(String.valueOf(graph.isLazyMaterialization()));
+        List<ClassLoaderNodeDefinition> nodes = new ArrayList<>(graph.getNodes());
+        Collections.sort(nodes, new Comparator<ClassLoaderNodeDefinition>() {
+            @Override
+            public int compare(ClassLoaderNodeDefinition o1, ClassLoaderNodeDefinition o2) {
+                return o1.getName().compareTo(o2.getName());
+            }
+        });
+        for (ClassLoaderNodeDefinition node : nodes) {
+            fingerprint.add(node.getName())
+                    .add(node.getParent() == null ? null : node.getParent().getName())
+                    .add(strategyKey(node.getLoadingStrategy()))
+                    .add(String.valueOf(node.getSourceEngine()))
+                    .add(String.valueOf(node.getLockMode()))
+                    .add(String.valueOf(node.getResourceCacheSize()));
+            for (BytecodeTransformer transformer : node.getTransformers()) {
+                fingerprint.add("transformer").add(transformer.getClass().getName()).add(transformer.getVersion());
+            }
+            for (ImportDefinition importDef : node.getImportClasses()) {
+                fingerprint.add("class").add(importDef.getTarget().getName()).add(importDef.getPath());
+            }
+            for (ImportDefinition importDef : node.getImportResources()) {
+                fingerprint.add("resource").add(importDef.getTarget().getName()).add(importDef.getPath());
+            }
+            for (String source : node.getSources()) {
+                fingerprint.add(source).addSource(source, graph.getParentClassLoader());
+            }
+        }
+        return fingerprint.toHex();
+    }
+
+    static String strategyKey(ClassLoadingStrategy strategy) {
+        if (strategy == null) {
+            return null;
+        }
+        String className = strategy.getClass().getName();
+        if (strategy instanceof Enum) {
+            return className + ":" + ((Enum<?>) strategy).name();
+        }
+        try {
+            if (strategy.getClass().getMethod("toString").getDeclaringClass() != Object.class) {
+                return className + ":" + strategy;
+            }
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+        return className;
+    }
+
+    static int featureVersion(String specificationVersion) {
+        if (specificationVersion == null) {
+            return 0;
+        }
+        String version = specificationVersion.startsWith("1.") ? specificationVersion.substring(2) : specificationVersion;
+        int end = 0;
+        while (end < version.length() && Character.isDigit(version.charAt(end))) {
+            end++;
+        }
+        return end == 0 ? 0 : Integer.parseInt(version.substring(0, end));
+    }
+
+    private static int waitFor(final Process process) throws InterruptedException {
+        Thread killer = new Thread("clg-cds-child-killer") {
+            @Override
+            public void run() {
+                process.destroy();
+            }
+        };
+        Runtime.getRuntime().addShutdownHook(killer);
+        try {
+            return process.waitFor();
+        } finally {
+            try {
+                Runtime.getRuntime().removeShutdownHook(killer);
+            } catch (IllegalStateException e) {
+                log.trace("Shutdown is in progress");
+            }
+        }
+    }
+
+    private static class Fingerprint {
+        private final MessageDigest digest;
+
+        Fingerprint() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        Fingerprint add(String value) {
+            digest.update(String.valueOf(value).getBytes(UTF_8));
+            digest.update((byte) 0);
+            return this;
+        }
+
+        Fingerprint addSource(String source, ClassLoader classLoader) {
+            if (source.startsWith("jar:") && source.contains("!/")) {
+                String outer = source.substring("jar:".length(), source.indexOf("!/"));
+                try {
+                    return addUrl(new URL(outer));
+                } catch (MalformedURLException e) {
+                    return add(outer);
+                }
+            }
+            UrlHolder holder = SOURCE_RESOLVER.resolveSource(source, classLoader);
+            if (holder == null) {
+                return add("unresolved");
+            }
+            for (URL url : holder.getURLs()) {
+                addUrl(url);
+            }
+            return this;
+        }
+
+        Fingerprint addUrl(URL url) {
+            if (!"file".equals(url.getProtocol())) {
+                return add(url.toString());
+            }
+            try {
+                return addFile(Paths.get(url.toURI()).toString());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                return add(url.toString());
+            }
+        }
+
+        Fingerprint addFile(String file) {
+            try {
+                Path path = Paths.get(file);
+                add(path.toAbsolutePath().toString());
+                if (Files.isRegularFile(path)) {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    add(Long.toString(attributes.size())).add(Long.toString(attributes.lastModifiedTime().toMillis()));
+                } else {
+                    add(Files.exists(path) ? "directory" : "missing");
+                }
+            } catch (InvalidPathException | IOException e) {
+                add(file);
+            }
+            return this;
+        }
+
+        String toHex() {
+            byte[] hash = digest.digest();
+            StringBuilder sb = new StringBuilder(32);
+            for (int i = 0; i < 16; i++) {
+                sb.append(Character.forDigit(hash[i] >> 4 & 0xf, 16)).append(Character.forDigit(hash[i] & 0xf, 16));
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package io.github.alopukhov.dare.clg.launcher;
+
+public enum CdsMode {
+    OFF, AUTO, TRAIN;
+
+    public static CdsMode byName(String name) {
+        return valueOf(name.trim().replace('-', '_').toUpperCase());
+    }
+}
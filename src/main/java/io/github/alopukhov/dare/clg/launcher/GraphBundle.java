@@ -0,0 +1,210 @@
+package io.github.alopukhov.dare.clg.launcher;
+
+import io.github.alopukhov.dare.clg.ClassLoaderGraph;
+import io.github.alopukhov.dare.clg.ClassLoaderNode;
+import io.github.alopukhov.dare.clg.MaterializationException;
+import io.github.alopukhov.dare.clg.launcher.readers.PropertiesLaunchInfoReader;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+@Slf4j
+public final class GraphBundle {
+    public static final String CONFIG_ENTRY = "clg.properties";
+    private static final String NODES_DIRECTORY = "nodes/";
+    private static final Pattern SOURCES_KEY = Pattern.compile("^node\\.([^.]+)\\.sources$");
+    private static final Pattern SOURCE_ENGINE_KEY = Pattern.compile("^node\\.([^.]+)\\.source\\.engine$");
+    private static final Pattern ARRAY_SPLIT_REGEXP = Pattern.compile("\\s*,\\s*");
+
+    private GraphBundle() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: GraphBundle <config.properties> <bundle>");
+            System.exit(2);
+        }
+        write(Paths.get(args[0]), Paths.get(args[1]));
+    }
+
+    public static void write(Path config, Path bundle) throws IOException, ConfigurationException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(config, UTF_8)) {
+            properties.load(reader);
+        }
+        LaunchInfo launchInfo = new PropertiesLaunchInfoReader().readLaunchInfo(properties);
+        ClassLoaderGraph graph;
+        try {
+            graph = launchInfo.getGraphDefinition().materialize(launchInfo.getMaterializerClassLoader(),
+                    launchInfo.getMaterializeParallelism());
+        } catch (MaterializationException e) {
+            throw new ConfigurationException("Can't materialize graph", e);
+        }
+        Path temp = Files.createTempFile(bundle.toAbsolutePath().getParent(), bundle.getFileName().toString(), ".tmp");
+        try {
+            try (ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                Properties bundled = new Properties();
+                for (String key : properties.stringPropertyNames()) {
+                    if (!SOURCES_KEY.matcher(key).matches() && !SOURCE_ENGINE_KEY.matcher(key).matches()) {
+                        bundled.setProperty(key, properties.getProperty(key));
+                    }
+                }
+                List<ClassLoaderNode> nodes = new ArrayList<>(graph.getAllNodes());
+                for (ClassLoaderNode node : nodes) {
+                    List<String> sources = writeNode(out, node);
+                    if (!sources.isEmpty()) {
+                        bundled.setProperty("node." + node.getName() + ".sources", join(sources));
+                    }
+                }
+                ByteArrayOutputStream configBytes = new ByteArrayOutputStream();
+                bundled.store(new OutputStreamWriter(configBytes, UTF_8), "Graph bundle configuration");
+                putStored(out, CONFIG_ENTRY, configBytes.toByteArray());
+            }
+            if (Files.size(temp) > Integer.MAX_VALUE) {
+                throw new IOException("Graph bundle is larger than 2 GB and can't be mapped: " + Files.size(temp));
+            }
+            Files.move(temp, bundle, StandardCopyOption.REPLACE_EXISTING);
+            log.info("Graph bundle written to [{}]", bundle);
+        } finally {
+            Files.deleteIfExists(temp);
+            try {
+                graph.close();
+            } catch (Exception e) {
+                log.warn("Can't close graph properly", e);
+            }
+        }
+    }
+
+    static Properties readConfiguration(Path bundle) throws IOException {
+        Properties properties = new Properties();
+        try (ZipFile zip = new ZipFile(bundle.toFile())) {
+            ZipEntry entry = zip.getEntry(CONFIG_ENTRY);
+            if (entry == null) {
+                throw new FileNotFoundException("Bundle " + bundle + " has no " + CONFIG_ENTRY);
+            }
+            try (InputStream in = zip.getInputStream(entry)) {
+                properties.load(new InputStreamReader(in, UTF_8));
+            }
+        }
+        String base = "jar:" + bundle.toAbsolutePath().toUri().toURL() + "!/";
+        for (String key : properties.stringPropertyNames()) {
+            Matcher matcher = SOURCES_KEY.matcher(key);
+            if (matcher.matches()) {
+                List<String> sources = new ArrayList<>();
+                for (String source : ARRAY_SPLIT_REGEXP.split(properties.getProperty(key).trim())) {
+                    sources.add(base + source);
+                }
+                properties.setProperty(key, join(sources));
+            }
+        }
+        return properties;
+    }
+
+    private static List<String> writeNode(ZipOutputStream out, ClassLoaderNode node) throws IOException {
+        List<String> sources = new ArrayList<>();
+        String nodeDirectory = NODES_DIRECTORY + node.getName() + "/";
+        URL[] urls = ((URLClassLoader) node.getClassLoader()).getURLs();
+        for (int i = 0; i < urls.length; i++) {
+            Path path = toPath(urls[i]);
+            if (Files.isDirectory(path)) {
+                String directory = nodeDirectory + i + "/";
+                putDirectory(out, directory, path);
+                sources.add(directory);
+            } else {
+                String name = nodeDirectory + i + "-" + path.getFileName();
+                putStored(out, name, path);
+                sources.add(name);
+            }
+        }
+        log.debug("Bundled node [{}] sources: {}", node.getName(), sources);
+        return sources;
+    }
+
+    private static Path toPath(URL url) throws IOException {
+        if (!"file".equals(url.getProtocol())) {
+            throw new IOException("Only local jar and directory sources can be bundled: " + url);
+        }
+        try {
+            return Paths.get(url.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("Bad source url " + url, e);
+        }
+    }
+
+    private static void putDirectory(final ZipOutputStream out, final String prefix, final Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                putStored(out, prefix + relativeName(root, dir, true), new byte[0]);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                putStored(out, prefix + relativeName(root, file, false), file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static String relativeName(Path root, Path path, boolean directory) {
+        String name = root.relativize(path).toString().replace(File.separatorChar, '/');
+        return directory && !name.isEmpty() ? name + "/" : name;
+    }
+
+    private static void putStored(ZipOutputStream out, String name, Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                crc.update(buffer, 0, n);
+            }
+        }
+        ZipEntry entry = storedEntry(name, Files.size(file), crc.getValue());
+        out.putNextEntry(entry);
+        Files.copy(file, out);
+        out.closeEntry();
+    }
+
+    private static void putStored(ZipOutputStream out, String name, byte[] bytes) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        out.putNextEntry(storedEntry(name, bytes.length, crc.getValue()));
+        out.write(bytes);
+        out.closeEntry();
+    }
+
+    private static ZipEntry storedEntry(String name, long size, long crc) {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(size);
+        entry.setCompressedSize(size);
+        entry.setCrc(crc);
+        return entry;
+    }
+
+    private static String join(List<String> values) {
+        StringBuilder sb = new StringBuilder();
+        for (String value : values) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+}
@@ -5,6 +5,8 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
 
+import java.nio.file.Path;
+
 @Getter
 @Setter
 public class LaunchInfo {
@@ -14,4 +16,8 @@ public class LaunchInfo {
     private String mainClassname;
     @NonNull
     private ClassLoader materializerClassLoader = LaunchInfo.class.getClassLoader();
+    @NonNull
+    private CdsMode cdsMode = CdsMode.OFF;
+    private Path cdsArchiveDirectory;
+    private int materializeParallelism = 1;
 }
\ No newline at end of file
@@ -24,6 +24,7 @@ import static java.util.Objects.requireNonNull;
 @Setter
 public class Launcher {
     public static final String LAUNCH_CONFIG_LOCATION = "dare.clg.launch.config.location";
+    public static final String LAUNCH_BUNDLE_LOCATION = "dare.clg.launch.bundle.location";
     public static final String CONFIG_FILE_NAME = "clg";
     public static final String CONFIG_DIRECTORY = "config";
     private static final String CLASSPATH_PREFIX = "classpath:";
@@ -36,14 +37,27 @@ public class Launcher {
     @NonNull
     private ClassLoader configResolverClassloader = Launcher.class.getClassLoader();
     private LaunchInfo launchInfo;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private String configLocation;
 
     public static void main(String[] args) throws Exception {
         Launcher launcher = new Launcher();
         launcher.readConfiguration();
+        Integer exitCode = launcher.runWithCds(args);
+        if (exitCode != null) {
+            System.exit(exitCode);
+        }
         launcher.run(args);
     }
 
     public void readConfiguration() throws ConfigurationException {
+        String bundle = System.getProperty(LAUNCH_BUNDLE_LOCATION);
+        if (bundle != null) {
+            log.info("Bundle location is set to [{}] via system property", bundle);
+            readBundle(Paths.get(bundle));
+            return;
+        }
         String location = System.getProperty(LAUNCH_CONFIG_LOCATION);
         if (location != null) {
             log.info("Config location path is set to [{}] via system property", location);
@@ -71,12 +85,23 @@ public class Launcher {
         LaunchInfoReader reader = resolveReader(location);
         try (InputStream inputStream = openConfigFile(location)) {
             launchInfo = reader.readLaunchInfo(inputStream);
+            configLocation = location;
         } catch (Exception e) {
             log.error("Error reading config file", e);
             throw new ConfigurationException(e);
         }
     }
 
+    public void readBundle(Path bundle) throws ConfigurationException {
+        try {
+            launchInfo = new PropertiesLaunchInfoReader().readLaunchInfo(GraphBundle.readConfiguration(bundle));
+            configLocation = null;
+        } catch (Exception e) {
+            log.error("Error reading graph bundle", e);
+            throw new ConfigurationException(e);
+        }
+    }
+
     public void run(String[] args) throws ConfigurationException, LaunchException {
         validateConfiguration(args);
         final String mainClassName;
@@ -94,9 +119,15 @@ public class Launcher {
             throw new ConfigurationException("Running class [" + mainClassName + "] is forbidden");
         }
 
+        String classList = System.getProperty(CdsLauncher.CLASS_LIST_PROPERTY);
+        if (classList != null && launchInfo.getGraphDefinition().getPreloadProfile() == null) {
+            log.info("Using CDS class list [{}] as preload profile", classList);
+            launchInfo.getGraphDefinition().setPreloadProfile(Paths.get(classList));
+        }
         ClassLoaderGraph graph;
         try {
-            graph = launchInfo.getGraphDefinition().materialize(launchInfo.getMaterializerClassLoader());
+            graph = launchInfo.getGraphDefinition().materialize(launchInfo.getMaterializerClassLoader(),
+                    launchInfo.getMaterializeParallelism());
         } catch (MaterializationException e) {
             log.error("Can't materialize graph", e);
             throw new ConfigurationException("Can't materialize graph", e);
@@ -121,6 +152,14 @@ public class Launcher {
         }
     }
 
+    public Integer runWithCds(String[] args) throws ConfigurationException {
+        validateConfiguration(args);
+        if (launchInfo.getCdsMode() == CdsMode.OFF || CdsLauncher.isChild()) {
+            return null;
+        }
+        return new CdsLauncher(launchInfo, configLocation).launch(args);
+    }
+
     private void validateConfiguration(String[] args) throws ConfigurationException {
         if (launchInfo == null) {
             throw new IllegalStateException("Not configured");
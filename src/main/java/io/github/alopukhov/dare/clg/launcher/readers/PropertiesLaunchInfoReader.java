@@ -1,5 +1,6 @@
 package io.github.alopukhov.dare.clg.launcher.readers;
 
+import io.github.alopukhov.dare.clg.launcher.CdsMode;
 import io.github.alopukhov.dare.clg.launcher.ConfigurationException;
 import io.github.alopukhov.dare.clg.launcher.LaunchInfo;
 import io.github.alopukhov.dare.clg.launcher.LaunchInfoReader;
@@ -9,6 +10,7 @@ import lombok.extern.slf4j.Slf4j;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -32,8 +34,14 @@ public class PropertiesLaunchInfoReader implements LaunchInfoReader {
     public LaunchInfo readLaunchInfo(InputStream inputStream) throws IOException, ConfigurationException {
         Properties properties = new Properties();
         properties.load(new InputStreamReader(inputStream, UTF_8));
+        return readLaunchInfo(properties);
+    }
+
+    public LaunchInfo readLaunchInfo(Properties properties) throws ConfigurationException {
+        Properties copy = new Properties();
+        copy.putAll(properties);
         PropertiesHandler handler = new PropertiesHandler();
-        handler.handle(properties);
+        handler.handle(copy);
         return handler.info;
     }
 
@@ -95,6 +103,41 @@ public class PropertiesLaunchInfoReader implements LaunchInfoReader {
                 target.getGraphDefinition().getOrCreateNode(node).setLoadingStrategy(value);
             }
         },
+        SET_SOURCE_ENGINE(Pattern.compile("^node\\.([^.]+)\\.source\\.engine$")) {
+            @Override
+            protected void doHandle(Matcher keyMatcher, String value, LaunchInfo target) {
+                String node = keyMatcher.group(1);
+                log.debug("Setting node [{}] source engine to [{}]", node, value);
+                target.getGraphDefinition().getOrCreateNode(node).setSourceEngine(value);
+            }
+        },
+        SET_LOCK_MODE(Pattern.compile("^node\\.([^.]+)\\.lock\\.mode$")) {
+            @Override
+            protected void doHandle(Matcher keyMatcher, String value, LaunchInfo target) {
+                String node = keyMatcher.group(1);
+                log.debug("Setting node [{}] lock mode to [{}]", node, value);
+                target.getGraphDefinition().getOrCreateNode(node).setLockMode(value);
+            }
+        },
+        SET_RESOURCE_CACHE_SIZE(Pattern.compile("^node\\.([^.]+)\\.resource\\.cache\\.size$")) {
+            @Override
+            protected void doHandle(Matcher keyMatcher, String value, LaunchInfo target) {
+                String node = keyMatcher.group(1);
+                log.debug("Setting node [{}] resource cache size to [{}]", node, value);
+                target.getGraphDefinition().getOrCreateNode(node).setResourceCacheSize(Integer.parseInt(value));
+            }
+        },
+        ADD_TRANSFORMERS(Pattern.compile("^node\\.([^.]+)\\.transformers$")) {
+            @Override
+            protected void doHandle(Matcher keyMatcher, String value, LaunchInfo target) {
+                String node = keyMatcher.group(1);
+                List<String> transformers = asList(ARRAY_SPLIT_REGEXP.split(value));
+                log.debug("Adding node [{}] transformers: {}", node, transformers);
+                for (String transformer : transformers) {
+                    target.getGraphDefinition().getOrCreateNode(node).addTransformer(transformer);
+                }
+            }
+        },
         SET_SOURCES(Pattern.compile("^node\\.([^.]+)\\.sources$")) {
             @Override
             protected void doHandle(Matcher keyMatcher, String value, LaunchInfo target) {
@@ -163,6 +206,28 @@ public class PropertiesLaunchInfoReader implements LaunchInfoReader {
                 target.setMaterializerClassLoader(byName(value));
             }
         },
+        MATERIALIZE_PARALLELISM("launcher.materialize.parallelism") {
+            @Override
+            public void set(LaunchInfo target, String value) {
+                int parallelism = Integer.parseInt(value);
+                if (parallelism < 1) {
+                    throw new IllegalArgumentException("Materialize parallelism must be positive: " + parallelism);
+                }
+                target.setMaterializeParallelism(parallelism);
+            }
+        },
+        CDS_MODE("launcher.cds.mode") {
+            @Override
+            public void set(LaunchInfo target, String value) {
+                target.setCdsMode(CdsMode.byName(value));
+            }
+        },
+        CDS_ARCHIVE_DIRECTORY("launcher.cds.archive.directory") {
+            @Override
+            public void set(LaunchInfo target, String value) {
+                target.setCdsArchiveDirectory(value.isEmpty() ? null : Paths.get(value));
+            }
+        },
         GRAPH_DEFAULT_LOADING("graph.default.loading.strategy") {
             @Override
             public void set(LaunchInfo target, String value) {
@@ -174,6 +239,48 @@ public class PropertiesLaunchInfoReader implements LaunchInfoReader {
             public void set(LaunchInfo target, String value) {
                 target.getGraphDefinition().setParentClassLoader(byName(value));
             }
+        },
+        GRAPH_JMX_ENABLED("graph.jmx.enabled") {
+            @Override
+            public void set(LaunchInfo target, String value) {
+                target.getGraphDefinition().setJmxEnabled(Boolean.parseBoolean(value));
+            }
+        },
+        GRAPH_PLATFORM_FAST_PATH("graph.platform.fast.path") {
+            @Override
+            public void set(LaunchInfo target, String value) {
+                target.getGraphDefinition().setPlatformFastPathEnabled(Boolean.parseBoolean(value));
+            }
+        },
+        GRAPH_LAZY_MATERIALIZATION("graph.lazy.materialization") {
+            @Override
+            public void set(LaunchInfo target, String value) {
+                target.getGraphDefinition().setLazyMaterialization(Boolean.parseBoolean(value));
+            }
+        },
+        GRAPH_DOWNLOAD_CACHE_DIRECTORY("graph.download.cache.directory") {
+            @Override
+            public void set(LaunchInfo target, String value) {
+                target.getGraphDefinition().setDownloadCacheDirectory(value.isEmpty() ? null : Paths.get(value));
+            }
+        },
+        GRAPH_PLAN_CACHE("graph.plan.cache") {
+            @Override
+            public void set(LaunchInfo target, String value) {
+                target.getGraphDefinition().setPlanCacheFile(value.isEmpty() ? null : Paths.get(value));
+            }
+        },
+        GRAPH_TRANSFORM_CACHE_DIRECTORY("graph.transform.cache.directory") {
+            @Override
+            public void set(LaunchInfo target, String value) {
+                target.getGraphDefinition().setTransformCacheDirectory(value.isEmpty() ? null : Paths.get(value));
+            }
+        },
+        GRAPH_PRELOAD_PROFILE("graph.preload.profile") {
+            @Override
+            public void set(LaunchInfo target, String value) {
+                target.getGraphDefinition().setPreloadProfile(value.isEmpty() ? null : Paths.get(value));
+            }
         };
 
         private final String key;
@@ -0,0 +1,7 @@
+package io.github.alopukhov.dare.clg.spi;
+
+public interface BytecodeTransformer {
+    String getVersion();
+
+    byte[] transform(String className, byte[] classBytes);
+}
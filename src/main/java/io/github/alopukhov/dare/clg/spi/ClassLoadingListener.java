@@ -0,0 +1,17 @@
+package io.github.alopukhov.dare.clg.spi;
+
+import java.net.URL;
+
+public interface ClassLoadingListener {
+    void classDefined(String nodeName, Class<?> definedClass);
+
+    void classResolved(String nodeName, String className, LookupStep step, Class<?> resolvedClass);
+
+    void classMissed(String nodeName, String className);
+
+    void resourceResolved(String nodeName, String resourceName, URL resource);
+
+    enum LookupStep {
+        PARENT, SELF, IMPORTS
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.alopukhov.dare.clg.spi;
+
+import java.net.URL;
+
+public class ClassLoadingListenerAdapter implements ClassLoadingListener {
+    @Override
+    public void classDefined(String nodeName, Class<?> definedClass) {
+    }
+
+    @Override
+    public void classResolved(String nodeName, String className, LookupStep step, Class<?> resolvedClass) {
+    }
+
+    @Override
+    public void classMissed(String nodeName, String className) {
+    }
+
+    @Override
+    public void resourceResolved(String nodeName, String resourceName, URL resource) {
+    }
+}
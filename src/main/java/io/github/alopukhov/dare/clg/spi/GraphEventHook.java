@@ -0,0 +1,17 @@
+package io.github.alopukhov.dare.clg.spi;
+
+public interface GraphEventHook {
+    Span startPhase(String phase);
+
+    Span startSourceResolution(String nodeName, String source);
+
+    long getSlowCallThresholdNanos();
+
+    void slowClassLookup(String nodeName, String className, String step, boolean found, long durationNanos);
+
+    void slowResourceLookup(String nodeName, String resourceName, boolean found, long durationNanos);
+
+    interface Span {
+        void end(String outcome);
+    }
+}
@@ -0,0 +1,96 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoadingStrategy.LoadingUtil;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import static java.util.Collections.enumeration;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BaseStrategyTest {
+    @Test
+    public void resourceStagesAreLookedUpOnlyWhenConsumed() throws Exception {
+        RecordingLoadingUtil util = new RecordingLoadingUtil();
+        Enumeration<URL> resources = BaseStrategy.PSI.getResources("r", util);
+        assertThat(util.calls).containsExactly("P");
+        assertThat(resources.nextElement()).isEqualTo(new URL("file:/parent/r"));
+        assertThat(util.calls).containsExactly("P");
+        assertThat(resources.nextElement()).isEqualTo(new URL("file:/self/r"));
+        assertThat(util.calls).containsExactly("P", "S");
+        assertThat(Collections.list(resources)).containsExactly(new URL("file:/import/r"));
+        assertThat(util.calls).containsExactly("P", "S", "I");
+    }
+
+    @Test
+    public void duplicateResourcesAreSkipped() throws Exception {
+        List<URL> resources = Collections.list(BaseStrategy.IPS.getResources("r", new RecordingLoadingUtil()));
+        assertThat(resources).containsExactly(
+                new URL("file:/import/r"), new URL("file:/self/r"), new URL("file:/parent/r"));
+    }
+
+    private static class RecordingLoadingUtil implements LoadingUtil {
+        private final List<String> calls = new ArrayList<>();
+
+        @Override
+        public Class<?> findClassInParent(String name) {
+            return null;
+        }
+
+        @Override
+        public Class<?> findClassInSelf(String name) {
+            return null;
+        }
+
+        @Override
+        public Class<?> findClassInImports(String name) {
+            return null;
+        }
+
+        @Override
+        public URL findResourceInParent(String name) {
+            return null;
+        }
+
+        @Override
+        public URL findResourceInSelf(String name) {
+            return null;
+        }
+
+        @Override
+        public URL findResourceInImports(String name) {
+            return null;
+        }
+
+        @Override
+        public Enumeration<URL> findResourcesInParent(String name) throws IOException {
+            calls.add("P");
+            return urls("file:/parent/" + name);
+        }
+
+        @Override
+        public Enumeration<URL> findResourcesInSelf(String name) throws IOException {
+            calls.add("S");
+            return urls("file:/self/" + name, "file:/parent/" + name);
+        }
+
+        @Override
+        public Enumeration<URL> findResourcesInImports(String name) throws IOException {
+            calls.add("I");
+            return urls("file:/import/" + name, "file:/self/" + name);
+        }
+
+        private static Enumeration<URL> urls(String... specs) throws IOException {
+            List<URL> urls = new ArrayList<>();
+            for (String spec : specs) {
+                urls.add(new URL(spec));
+            }
+            return enumeration(urls);
+        }
+    }
+}
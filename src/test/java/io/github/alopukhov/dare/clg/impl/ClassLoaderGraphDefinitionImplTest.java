@@ -2,12 +2,17 @@ package io.github.alopukhov.dare.clg.impl;
 
 import io.github.alopukhov.dare.clg.ClassLoaderGraph;
 import io.github.alopukhov.dare.clg.ClassLoaderGraphDefinition;
+import io.github.alopukhov.dare.clg.MaterializationException;
 import io.github.alopukhov.dare.clg.UnpackedTestJarsRule;
 import lombok.Cleanup;
 import org.junit.ClassRule;
 import org.junit.Test;
 
+import java.net.URLClassLoader;
+
 import static io.github.alopukhov.dare.clg.impl.AssertClassLoader.assertClassLoader;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.assertj.core.groups.Tuple.tuple;
 
 public class ClassLoaderGraphDefinitionImplTest {
@@ -92,5 +97,84 @@ public class ClassLoaderGraphDefinitionImplTest {
                 .containsOnly(tuple("jar-b", "jar-a"));
     }
 
+    @Test
+    public void parallelSourceResolutionKeepsSourceOrder() throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("a").addSource(jars.jarUrlC().toString()).addSource(jars.jarUrlA().toString())
+                .addSource(jars.jarUrlB().toString());
+        gd.getOrCreateNode("b").addSource(jars.getRoot().toString() + "/jar-*.jar");
+        @Cleanup ClassLoaderGraph sequential = gd.materialize();
+        @Cleanup ClassLoaderGraph parallel = gd.materialize(ClassLoaderGraphDefinitionImpl.class.getClassLoader(), 4);
+        for (String node : new String[]{"a", "b"}) {
+            assertThat(((URLClassLoader) parallel.getNode(node).getClassLoader()).getURLs())
+                    .containsExactly(((URLClassLoader) sequential.getNode(node).getClassLoader()).getURLs());
+        }
+        assertThat(((URLClassLoader) parallel.getNode("a").getClassLoader()).getURLs())
+                .containsExactly(jars.jarUrlC(), jars.jarUrlA(), jars.jarUrlB());
+        assertClassLoader(parallel.getNode("a")).classInstance("C").extracting("source").containsOnly("jar-c");
+    }
 
-}
\ No newline at end of file
+    @Test
+    public void parallelSourceResolutionReportsUnresolvedSource() throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("a").addSource(jars.jarUrlA().toString());
+        gd.getOrCreateNode("b").addSource("unknown-protocol:missing.jar");
+        try {
+            gd.materialize(ClassLoaderGraphDefinitionImpl.class.getClassLoader(), 2).close();
+            fail("Expected unresolved source to fail materialization");
+        } catch (MaterializationException expected) {
+            assertThat(expected.getMessage()).contains("unknown-protocol:missing.jar");
+        }
+    }
+
+    @Test
+    public void lazyGraphMaterializesNodesOnFirstUse() throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl().setLazyMaterialization(true);
+        gd.getOrCreateNode("a").addSource(jars.jarUrlA().toString()).addChild("c");
+        gd.getOrCreateNode("b").addSource(jars.jarUrlB().toString()).addImportClasses("a", "A");
+        gd.getOrCreateNode("c").addSource(jars.jarUrlC().toString());
+        gd.getOrCreateNode("unused").addSource("unknown-protocol:missing.jar");
+        @Cleanup ClassLoaderGraph graph = gd.materialize();
+        AssertClassLoader nodeB = assertClassLoader(graph.getNode("b"));
+        nodeB.classInstance("A").extracting("source", "superSource").containsOnly("jar-a");
+        nodeB.classInstances("B", "C").flatExtracting("source", "superSource").containsOnly("jar-b");
+        assertThat(graph.getNode("c").getParent()).isSameAs(graph.getNode("a"));
+        assertThat(graph.getNode("missing")).isNull();
+        try {
+            graph.getNode("unused");
+            fail("Expected unresolved source to fail node materialization");
+        } catch (IllegalStateException expected) {
+            assertThat(expected.getCause()).hasMessageContaining("unknown-protocol:missing.jar");
+        }
+    }
+
+    @Test
+    public void lazyGraphIgnoresDefinitionChangesAfterMaterialization() throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl().setLazyMaterialization(true);
+        gd.getOrCreateNode("a").addSource(jars.jarUrlA().toString()).addChild("c");
+        gd.getOrCreateNode("c").addSource(jars.jarUrlC().toString());
+        @Cleanup ClassLoaderGraph graph = gd.materialize();
+        gd.getNode("a").setParent("c");
+        gd.getOrCreateNode("late").addSource(jars.jarUrlB().toString());
+        assertThat(graph.getNode("c").getParent()).isSameAs(graph.getNode("a"));
+        assertThat(graph.getNode("a").getParent()).isNull();
+        assertThat(graph.getNode("late")).isNull();
+        assertThat(graph.getAllNodes()).extracting("name").containsOnly("a", "c");
+    }
+
+    @Test
+    public void lazyGraphRejectsNodeLookupsAfterClose() throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl().setLazyMaterialization(true);
+        gd.getOrCreateNode("a").addSource(jars.jarUrlA().toString());
+        gd.getOrCreateNode("b").addSource(jars.jarUrlB().toString());
+        ClassLoaderGraph graph = gd.materialize();
+        assertThat(graph.getOrphanNodes()).extracting("name").containsOnly("a", "b");
+        graph.close();
+        try {
+            graph.getNode("a");
+            fail("Expected closed graph to reject lookups");
+        } catch (IllegalStateException expected) {
+            assertThat(expected).hasMessageContaining("closed");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoaderGraph;
+import io.github.alopukhov.dare.clg.ClassLoaderGraphDefinition;
+import io.github.alopukhov.dare.clg.UnpackedTestJarsRule;
+import io.github.alopukhov.dare.clg.spi.ClassLoadingListener;
+import io.github.alopukhov.dare.clg.spi.ClassLoadingListenerAdapter;
+import lombok.Cleanup;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ClassLoadingListenersTest {
+    @ClassRule
+    public static final UnpackedTestJarsRule jars = new UnpackedTestJarsRule();
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void noListenersMeansNoop() {
+        assertThat(ClassLoadingListeners.combine(Collections.<ClassLoadingListener>emptyList()))
+                .isSameAs(ClassLoadingListeners.NOOP);
+    }
+
+    @Test
+    public void serviceListenersReceiveLookupEvents() throws Exception {
+        RecordingListener.events.clear();
+        Path services = tempFolder.newFolder("META-INF", "services").toPath();
+        Files.write(services.resolve(ClassLoadingListener.class.getName()),
+                RecordingListener.class.getName().getBytes(UTF_8));
+        @Cleanup URLClassLoader serviceLoader = new URLClassLoader(new URL[]{tempFolder.getRoot().toURI().toURL()},
+                ClassLoadingListenersTest.class.getClassLoader());
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("a").addSource(jars.jarUrlA().toString()).addChild("b");
+        gd.getOrCreateNode("b").addSource(jars.jarUrlB().toString());
+        @Cleanup ClassLoaderGraph graph = gd.materialize(serviceLoader);
+        ClassLoader b = graph.getNode("b").getClassLoader();
+        b.loadClass("A");
+        assertThat(b.getResource("data/foo.txt")).isNotNull();
+        try {
+            b.loadClass("Missing");
+        } catch (ClassNotFoundException expected) {
+            // expected
+        }
+        assertThat(RecordingListener.events).contains(
+                "defined:a:A", "resolved:a:A:SELF", "resolved:b:A:PARENT",
+                "resource:b:data/foo.txt", "missed:a:Missing", "missed:b:Missing");
+    }
+
+    public static class RecordingListener extends ClassLoadingListenerAdapter {
+        static final List<String> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void classDefined(String nodeName, Class<?> definedClass) {
+            events.add("defined:" + nodeName + ":" + definedClass.getName());
+        }
+
+        @Override
+        public void classResolved(String nodeName, String className, LookupStep step, Class<?> resolvedClass) {
+            events.add("resolved:" + nodeName + ":" + className + ":" + step);
+        }
+
+        @Override
+        public void classMissed(String nodeName, String className) {
+            events.add("missed:" + nodeName + ":" + className);
+        }
+
+        @Override
+        public void resourceResolved(String nodeName, String resourceName, URL resource) {
+            events.add("resource:" + nodeName + ":" + resourceName);
+        }
+    }
+}
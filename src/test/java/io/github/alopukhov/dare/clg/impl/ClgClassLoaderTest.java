@@ -28,7 +28,7 @@ public class ClgClassLoaderTest {
                 createImport(a, "A"),
                 createImport(b, "B"),
                 createImport(c, "C")),
-                Collections.<TargetImportItem>emptyList());
+                Collections.<TargetImportItem>emptyList(), null);
         Object A = newInstance(cl, "A");
         Object B = newInstance(cl, "B");
         Object C = newInstance(cl, "C");
@@ -39,10 +39,36 @@ public class ClgClassLoaderTest {
         assertThat(asList(A, B, C)).extracting("superSource").containsExactly("jar-a", "jar-b", "jar-c");
     }
 
+    @Test
+    public void probesBetweenGraphLoadersDoNotThrow() throws Exception {
+        @Cleanup ClgClassLoader parent = new NoPublicLoadClassLoader(jars.jarUrlC());
+        @Cleanup ClgClassLoader imported = new NoPublicLoadClassLoader(jars.jarUrlB());
+        @Cleanup ClgClassLoader cl = new ClgClassLoader(new URL[]{jars.jarUrlA()}, parent,
+                BaseStrategy.PIS, asList(createImport(imported, "**")),
+                Collections.<TargetImportItem>emptyList(), null);
+        assertThat(cl.tryLoad("Missing", false)).isNull();
+        assertThat(cl.tryLoad("C", false).getClassLoader()).isEqualTo(parent);
+        assertThat(cl.tryLoad("A", false).getClassLoader()).isEqualTo(cl);
+    }
+
     private static TargetImportItem createImport(ClassLoader from, String importPath) {
         return new TargetImportItem(from, createClassImport(importPath));
     }
 
+    private static class NoPublicLoadClassLoader extends ClgClassLoader {
+        NoPublicLoadClassLoader(URL url) {
+            super(new URL[]{url}, null, BaseStrategy.PIS, null, null, null);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if ("Missing".equals(name)) {
+                throw new AssertionError("Graph loaders must be probed without public loadClass");
+            }
+            return super.loadClass(name, resolve);
+        }
+    }
+
     private URLClassLoader urlClassLoader(URL... urls) {
         return new URLClassLoader(urls, ClassLoader.getSystemClassLoader());
     }
@@ -0,0 +1,163 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.github.alopukhov.dare.clg.ClassLoaderGraph;
+import io.github.alopukhov.dare.clg.ClassLoaderGraphDefinition;
+import io.github.alopukhov.dare.clg.UnpackedTestJarsRule;
+import io.github.alopukhov.dare.clg.spi.UrlHolder;
+import lombok.Cleanup;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.alopukhov.dare.clg.impl.AssertClassLoader.assertClassLoader;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DownloadCacheSourceResolverTest {
+    @ClassRule
+    public static UnpackedTestJarsRule jars = new UnpackedTestJarsRule();
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private volatile byte[] content;
+    private volatile String etag;
+    private HttpServer server;
+    private String jarUrl;
+
+    @Before
+    public void startServer() throws Exception {
+        content = Files.readAllBytes(jars.jarA());
+        etag = "\"a\"";
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                exchange.getResponseHeaders().set("ETag", etag);
+                if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    notModified.incrementAndGet();
+                    exchange.sendResponseHeaders(304, -1);
+                } else {
+                    exchange.sendResponseHeaders(200, content.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(content);
+                    }
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+        jarUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/lib/jar-a.jar";
+    }
+
+    @After
+    public void stopServer() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void downloadsOnceAndRevalidates() throws Exception {
+        Path cache = tempFolder.newFolder("cache").toPath();
+        DownloadCacheSourceResolver first = new DownloadCacheSourceResolver(cache);
+        URL local = singleUrl(first.resolveSource(jarUrl, null));
+        first.close();
+        assertThat(local.getProtocol()).isEqualTo("file");
+        assertThat(Files.readAllBytes(Paths.get(local.toURI()))).isEqualTo(content);
+        assertThat(first.getDownloads()).isEqualTo(1);
+
+        DownloadCacheSourceResolver second = new DownloadCacheSourceResolver(cache);
+        assertThat(singleUrl(second.resolveSource(jarUrl, null))).isEqualTo(local);
+        assertThat(second.getDownloads()).isZero();
+        assertThat(second.getRevalidations()).isEqualTo(1);
+        assertThat(notModified.get()).isEqualTo(1);
+        assertThat(requests.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void changedContentGetsNewBlob() throws Exception {
+        Path cache = tempFolder.newFolder("cache").toPath();
+        URL first = singleUrl(new DownloadCacheSourceResolver(cache).resolveSource(jarUrl, null));
+        content = Files.readAllBytes(jars.jarB());
+        etag = "\"b\"";
+        URL second = singleUrl(new DownloadCacheSourceResolver(cache).resolveSource(jarUrl, null));
+        assertThat(second).isNotEqualTo(first);
+        assertThat(Files.readAllBytes(Paths.get(second.toURI()))).isEqualTo(content);
+        assertThat(Files.exists(Paths.get(first.toURI()))).isTrue();
+    }
+
+    @Test
+    public void replacedBlobsArePrunedOnClose() throws Exception {
+        Path cache = tempFolder.newFolder("cache").toPath();
+        DownloadCacheSourceResolver first = new DownloadCacheSourceResolver(cache);
+        Path oldBlob = Paths.get(singleUrl(first.resolveSource(jarUrl, null)).toURI());
+        first.close();
+        Path freshOrphan = Files.write(oldBlob.resolveSibling("fresh.jar"), content);
+        Files.setLastModifiedTime(oldBlob, FileTime.fromMillis(System.currentTimeMillis() - 3600000));
+        content = Files.readAllBytes(jars.jarB());
+        etag = "\"b\"";
+        DownloadCacheSourceResolver second = new DownloadCacheSourceResolver(cache);
+        Path newBlob = Paths.get(singleUrl(second.resolveSource(jarUrl, null)).toURI());
+        second.close();
+        assertThat(second.getPrunedBlobs()).isEqualTo(1);
+        assertThat(Files.exists(oldBlob)).isFalse();
+        assertThat(Files.exists(newBlob)).isTrue();
+        assertThat(Files.exists(freshOrphan)).isTrue();
+    }
+
+    @Test
+    public void cachedCopyIsUsedWhenServerIsUnavailable() throws Exception {
+        Path cache = tempFolder.newFolder("cache").toPath();
+        URL local = singleUrl(new DownloadCacheSourceResolver(cache).resolveSource(jarUrl, null));
+        server.stop(0);
+        server = null;
+        DownloadCacheSourceResolver offline = new DownloadCacheSourceResolver(cache);
+        assertThat(singleUrl(offline.resolveSource(jarUrl, null))).isEqualTo(local);
+        assertThat(offline.getOfflineHits()).isEqualTo(1);
+        assertThat(offline.resolveSource(jarUrl.replace("jar-a", "missing"), null)).isNull();
+    }
+
+    @Test
+    public void nonHttpSourcesAreIgnored() throws Exception {
+        DownloadCacheSourceResolver resolver = new DownloadCacheSourceResolver(tempFolder.getRoot().toPath());
+        assertThat(resolver.resolveSource(jars.jarUrlA().toString(), null)).isNull();
+        assertThat(resolver.resolveSource("http://127.0.0.1/classes/", null)).isNull();
+        assertThat(requests.get()).isZero();
+    }
+
+    @Test
+    public void graphLoadsClassesFromDownloadedJar() throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl()
+                .setDownloadCacheDirectory(tempFolder.newFolder("cache").toPath());
+        gd.getOrCreateNode("a").addSource(jarUrl);
+        @Cleanup ClassLoaderGraph graph = gd.materialize();
+        assertClassLoader(graph.getNode("a")).hasClasses("A", "B", "C")
+                .classInstance("A").extracting("source").containsOnly("jar-a");
+        assertThat(graph.getNode("a").getClassLoader().getResource("data/foo.txt").getProtocol()).isEqualTo("jar");
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    private static URL singleUrl(UrlHolder holder) {
+        assertThat(holder).isNotNull();
+        assertThat(holder.getURLs()).hasSize(1);
+        return holder.getURLs().iterator().next();
+    }
+}
@@ -0,0 +1,158 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoaderGraph;
+import io.github.alopukhov.dare.clg.ClassLoaderGraphDefinition;
+import io.github.alopukhov.dare.clg.SourceEngine;
+import io.github.alopukhov.dare.clg.UnpackedTestJarsRule;
+import lombok.Cleanup;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import static io.github.alopukhov.dare.clg.impl.AssertClassLoader.assertClassLoader;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EntryIndexTest {
+    @ClassRule
+    public static final UnpackedTestJarsRule jars = new UnpackedTestJarsRule();
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void jarIndexResolvesSameUrlsAsUrlClassLoader() throws Exception {
+        @Cleanup URLClassLoader reference = new URLClassLoader(new URL[]{jars.jarUrlA()}, null);
+        EntryIndex index = EntryIndex.build(new URL[]{jars.jarUrlA()}, SourceEngine.JAR_FILE);
+        try {
+            assertThat(index).isNotNull();
+            assertThat(index.findSource("A.class")).isNotNull();
+            assertThat(index.findResource("data/foo.txt")).isEqualTo(reference.findResource("data/foo.txt"));
+            assertThat(index.findResource("Missing.class")).isNull();
+            assertThat(index.findSource("Missing.class")).isNull();
+        } finally {
+            index.close();
+        }
+    }
+
+    @Test
+    public void sharedEntriesAreListedInSourceOrder() throws Exception {
+        EntryIndex index = EntryIndex.build(new URL[]{jars.jarUrlB(), jars.jarUrlC()}, SourceEngine.JAR_FILE);
+        try {
+            Enumeration<URL> resources = index.findResources("C.class");
+            assertThat(Collections.list(resources)).extracting("path")
+                    .containsExactly(jars.jarUrlB() + "!/C.class", jars.jarUrlC() + "!/C.class");
+            assertThat(index.findSource("B.class").getUrl()).isEqualTo(jars.jarUrlB());
+        } finally {
+            index.close();
+        }
+    }
+
+    @Test
+    public void nonFileSourcesAreNotIndexed() throws Exception {
+        assertThat(EntryIndex.build(new URL[]{jars.jarUrlA(), new URL("http://localhost/lib.jar")}, SourceEngine.JAR_FILE)).isNull();
+    }
+
+    @Test
+    public void explodedDirectorySourceIsIndexed() throws Exception {
+        Path dir = explode(jars.jarA());
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("a").addSource(dir.toString() + "/");
+        @Cleanup ClassLoaderGraph graph = gd.materialize();
+        ClassLoader cl = graph.getNode("a").getClassLoader();
+        assertClassLoader(cl).hasClasses("A", "B", "C").doesNotHaveClass("Missing");
+        assertClassLoader(cl).classInstance("A").extracting("source", "superSource").containsOnly("jar-a");
+        assertThat(cl.getResource("data/foo.txt")).isEqualTo(dir.resolve("data/foo.txt").toUri().toURL());
+        assertThat(cl.getResource("data")).isNotNull();
+        assertThat(cl.getResource("data/missing.txt")).isNull();
+    }
+
+    @Test
+    public void memoryMappedEngineReadsSameEntriesAsJarFileEngine() throws Exception {
+        EntryIndex jarIndex = EntryIndex.build(new URL[]{jars.jarUrlA()}, SourceEngine.JAR_FILE);
+        EntryIndex mappedIndex = EntryIndex.build(new URL[]{jars.jarUrlA()}, SourceEngine.MEMORY_MAPPED);
+        try {
+            for (String name : asList("A.class", "Base.class", "data/foo.txt", "META-INF/MANIFEST.MF")) {
+                assertThat(mappedIndex.findSource(name).readEntry(name).getBytes())
+                        .as("Entry %s", name)
+                        .isEqualTo(jarIndex.findSource(name).readEntry(name).getBytes());
+            }
+            assertThat(mappedIndex.findSource("A.class").getManifest())
+                    .isEqualTo(jarIndex.findSource("A.class").getManifest());
+            assertThat(mappedIndex.findResource("data/foo.txt")).isEqualTo(jarIndex.findResource("data/foo.txt"));
+        } finally {
+            jarIndex.close();
+            mappedIndex.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void closedMemoryMappedSourceRejectsReads() throws Exception {
+        MappedJarEntrySource source = new MappedJarEntrySource(jars.jarUrlA(), jars.jarA().toFile());
+        assertThat(source.listEntries()).contains("A.class");
+        assertThat(source.readEntry("A.class").getBytes()).isNotEmpty();
+        source.close();
+        source.readEntry("A.class");
+    }
+
+    @Test
+    public void memoryMappedEngineNode() throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("a").addSource(jars.jarUrlA().toString()).setSourceEngine("memory-mapped").addChild("b");
+        gd.getOrCreateNode("b").addSource(jars.jarUrlB().toString()).setSourceEngine(SourceEngine.MEMORY_MAPPED);
+        gd.setDefaultLoadingStrategy("spi");
+        @Cleanup ClassLoaderGraph graph = gd.materialize();
+        AssertClassLoader nodeA = assertClassLoader(graph.getNode("a"));
+        AssertClassLoader nodeB = assertClassLoader(graph.getNode("b"));
+        nodeA.classInstances("A", "B", "C").flatExtracting("source", "superSource").containsOnly("jar-a");
+        nodeB.classInstance("A").extracting("source", "superSource").containsOnly("jar-a");
+        nodeB.classInstances("B", "C").flatExtracting("source", "superSource").containsOnly("jar-b");
+        assertThat(graph.getNode("b").getClassLoader().getResource("data/foo.txt")).isNotNull();
+    }
+
+    @Test
+    public void urlClassLoaderEngineDefinesClassesFromFoundResources() throws Exception {
+        Path exploded = explode(jars.jarB());
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("a").addSource(jars.jarUrlA().toString()).setSourceEngine(SourceEngine.URL_CLASS_LOADER);
+        gd.getOrCreateNode("b").addSource(exploded.toUri().toURL().toString()).setSourceEngine(SourceEngine.URL_CLASS_LOADER);
+        @Cleanup ClassLoaderGraph graph = gd.materialize();
+        ClassLoader a = graph.getNode("a").getClassLoader();
+        ClassLoader b = graph.getNode("b").getClassLoader();
+        assertClassLoader(graph.getNode("a")).doesNotHaveClass("Missing")
+                .classInstances("A", "B", "C").flatExtracting("source", "superSource").containsOnly("jar-a");
+        assertClassLoader(graph.getNode("b")).classInstance("C").extracting("source").containsOnly("jar-b");
+        assertThat(a.loadClass("A").getProtectionDomain().getCodeSource().getLocation()).isEqualTo(jars.jarUrlA());
+        assertThat(b.loadClass("C").getProtectionDomain().getCodeSource().getLocation())
+                .isEqualTo(exploded.toUri().toURL());
+    }
+
+    private Path explode(Path jar) throws Exception {
+        Path dir = tempFolder.newFolder().toPath();
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            for (JarEntry entry : Collections.list(jarFile.entries())) {
+                Path target = dir.resolve(entry.getName());
+                if (entry.isDirectory()) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.createDirectories(target.getParent());
+                    try (InputStream in = jarFile.getInputStream(entry)) {
+                        Files.copy(in, target);
+                    }
+                }
+            }
+        }
+        return dir;
+    }
+}
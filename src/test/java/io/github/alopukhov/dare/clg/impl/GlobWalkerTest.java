@@ -0,0 +1,81 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GlobWalkerTest {
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+    private Path root;
+
+    @Before
+    public void createTree() throws Exception {
+        root = tempFolder.getRoot().toPath();
+        for (String file : new String[]{"lib/a.jar", "lib/b.jar", "lib/x1.jar", "lib/readme.txt",
+                "lib/sub/c.jar", "lib/sub/deep/d.jar", "data/big/e.jar"}) {
+            Path path = root.resolve(file);
+            Files.createDirectories(path.getParent());
+            Files.createFile(path);
+        }
+    }
+
+    @Test
+    public void singleStarMatchesOneLevel() throws Exception {
+        assertThat(walk("lib/*.jar")).containsExactly("lib/a.jar", "lib/b.jar", "lib/x1.jar");
+        assertThat(walk("lib/*/c.jar")).containsExactly("lib/sub/c.jar");
+        assertThat(walk("*/*/*.jar")).containsExactly("data/big/e.jar", "lib/sub/c.jar");
+    }
+
+    @Test
+    public void doubleStarMatchesAnyDepth() throws Exception {
+        assertThat(walk("lib/**/*.jar"))
+                .containsExactly("lib/a.jar", "lib/b.jar", "lib/x1.jar", "lib/sub/c.jar", "lib/sub/deep/d.jar");
+        assertThat(walk("**/d.jar")).containsExactly("lib/sub/deep/d.jar");
+        assertThat(walk("lib/sub/**")).containsExactly("lib/sub/c.jar", "lib/sub/deep/d.jar");
+    }
+
+    @Test
+    public void characterClassesAndSingleCharacters() throws Exception {
+        assertThat(walk("lib/[ab].jar")).containsExactly("lib/a.jar", "lib/b.jar");
+        assertThat(walk("lib/[!ab]*.jar")).containsExactly("lib/x1.jar");
+        assertThat(walk("lib/[a-b].jar")).containsExactly("lib/a.jar", "lib/b.jar");
+        assertThat(walk("lib/?.jar")).containsExactly("lib/a.jar", "lib/b.jar");
+        assertThat(walk("lib/x[0-9].*")).containsExactly("lib/x1.jar");
+    }
+
+    @Test
+    public void literalSegmentsAreNotListed() throws Exception {
+        FileSourceHolder holder = GlobWalker.walk(root, "lib/sub/*.jar");
+        assertThat(holder.getWatchedDirectories().keySet())
+                .containsExactly(root.resolve("lib/sub").toAbsolutePath().toString());
+        assertThat(GlobWalker.walk(root, "missing/*.jar").getURLs()).isEmpty();
+    }
+
+    @Test
+    public void defaultResolverUsesGlobs() throws Exception {
+        DefaultSourceResolver resolver = new DefaultSourceResolver();
+        ClassLoader cl = getClass().getClassLoader();
+        assertThat(resolver.resolveSource(root + "/lib/*.jar", cl).getURLs()).hasSize(3);
+        assertThat(resolver.resolveSource(root + "/*/**/e.jar", cl).getURLs())
+                .containsExactly(root.resolve("data/big/e.jar").toUri().toURL());
+        assertThat(resolver.resolveSource(root + "/missing/dir/*.jar", cl)).isNull();
+    }
+
+    private List<String> walk(String pattern) throws Exception {
+        List<String> result = new ArrayList<>();
+        for (URL url : GlobWalker.walk(root, pattern).getURLs()) {
+            result.add(root.toUri().relativize(url.toURI()).toString());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,125 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoaderGraphDefinition;
+import io.github.alopukhov.dare.clg.MaterializationException;
+import io.github.alopukhov.dare.clg.UnpackedTestJarsRule;
+import io.github.alopukhov.dare.clg.spi.GraphEventHook;
+import io.github.alopukhov.dare.clg.spi.SourceResolver;
+import io.github.alopukhov.dare.clg.spi.UrlHolder;
+import lombok.Cleanup;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class GraphEventHooksTest {
+    @ClassRule
+    public static final UnpackedTestJarsRule jars = new UnpackedTestJarsRule();
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+    private URL services;
+
+    @Before
+    public void registerServices() throws Exception {
+        RecordingHook.events.clear();
+        Path dir = tempFolder.newFolder("META-INF", "services").toPath();
+        Files.write(dir.resolve(GraphEventHook.class.getName()), RecordingHook.class.getName().getBytes(UTF_8));
+        Files.write(dir.resolve(SourceResolver.class.getName()), FailingResolver.class.getName().getBytes(UTF_8));
+        services = tempFolder.getRoot().toURI().toURL();
+    }
+
+    @Test
+    public void unresolvedSourceEndsSourcesPhaseAsFailed() throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("a").addSource(jars.jarUrlA().toString());
+        gd.getOrCreateNode("broken").addSource("unknown-protocol:missing.jar");
+        materializeFailing(gd);
+        assertThat(RecordingHook.events).containsSubsequence(
+                "start:validate", "end:validate:ok", "start:resolvers", "end:resolvers:ok", "start:sources",
+                "end:source:broken:unresolved", "end:sources:failed");
+        assertThat(RecordingHook.events).doesNotContain("start:nodes");
+    }
+
+    @Test
+    public void throwingResolverEndsSourceSpanAsFailed() throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("broken").addSource(FailingResolver.PROTOCOL + "anything");
+        materializeFailing(gd);
+        assertThat(RecordingHook.events).containsSubsequence(
+                "start:sources", "start:source:broken", "end:source:broken:failed", "end:sources:failed");
+    }
+
+    private void materializeFailing(ClassLoaderGraphDefinition gd) throws Exception {
+        @Cleanup URLClassLoader serviceLoader = new URLClassLoader(new URL[]{services},
+                GraphEventHooksTest.class.getClassLoader());
+        try {
+            gd.materialize(serviceLoader).close();
+            fail("Expected materialization to fail");
+        } catch (MaterializationException | IllegalStateException expected) {
+            // expected
+        }
+    }
+
+    public static class RecordingHook implements GraphEventHook {
+        static final List<String> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Span startPhase(final String phase) {
+            events.add("start:" + phase);
+            return new Span() {
+                @Override
+                public void end(String outcome) {
+                    events.add("end:" + phase + ":" + outcome);
+                }
+            };
+        }
+
+        @Override
+        public Span startSourceResolution(final String nodeName, String source) {
+            events.add("start:source:" + nodeName);
+            return new Span() {
+                @Override
+                public void end(String outcome) {
+                    events.add("end:source:" + nodeName + ":" + outcome);
+                }
+            };
+        }
+
+        @Override
+        public long getSlowCallThresholdNanos() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public void slowClassLookup(String nodeName, String className, String step, boolean found, long durationNanos) {
+        }
+
+        @Override
+        public void slowResourceLookup(String nodeName, String resourceName, boolean found, long durationNanos) {
+        }
+    }
+
+    public static class FailingResolver implements SourceResolver {
+        static final String PROTOCOL = "failing:";
+
+        @Override
+        public UrlHolder resolveSource(String sourcePath, ClassLoader classLoader) {
+            if (sourcePath.startsWith(PROTOCOL)) {
+                throw new IllegalStateException("Resolver failure for " + sourcePath);
+            }
+            return null;
+        }
+    }
+}
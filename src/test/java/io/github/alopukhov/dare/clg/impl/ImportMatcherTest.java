@@ -0,0 +1,83 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.github.alopukhov.dare.clg.impl.ImportItem.createClassImport;
+import static io.github.alopukhov.dare.clg.impl.ImportItem.createResourceImport;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ImportMatcherTest {
+    private static final List<String> CLASS_IMPORTS = asList(
+            "java.util.List", "java.util.*", "java.**", "java.util.L*", "java.ut**", "**",
+            "java.util.Li*", "java.util.con*", "java.util.concurrent.*", "a", "a.*", "java.util.List");
+    private static final List<String> CLASS_NAMES = asList(
+            "java.util.List", "java.util.LinkedList", "java.util.Queue", "java.util.", "java.util",
+            "java.util.concurrent.ConcurrentMap", "java.List", "java", "javax.swing.JList", "a", "a.B", "a.b.C", "b", "");
+    private static final List<String> RESOURCE_IMPORTS = asList(
+            "foo/bar/baz", "foo/bar/*", "foo/bar/ba*", "foo/**", "foo/bar/b*", "foo/baz**");
+    private static final List<String> RESOURCE_PATHS = asList(
+            "foo/bar/baz", "foo/bar/", "foo/bar", "foo/bar/foo/", "foo/bar2/foo/", "foo/baz/baz", "foo/bar/bq", "bar");
+
+    @Test
+    public void classCandidatesMatchImportItems() {
+        ImportMatcher.Builder<String> builder = new ImportMatcher.Builder<>('.');
+        for (String importPath : CLASS_IMPORTS) {
+            builder.add(createClassImport(importPath), importPath);
+        }
+        ImportMatcher<String> matcher = builder.build();
+        for (String name : CLASS_NAMES) {
+            List<String> expected = new ArrayList<>();
+            for (String importPath : CLASS_IMPORTS) {
+                if (createClassImport(importPath).accepts(name)) {
+                    expected.add(importPath);
+                }
+            }
+            assertThat(accepted(matcher, name)).as("Class imports accepting '%s'", name).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void resourceCandidatesMatchImportItems() {
+        ImportMatcher.Builder<String> builder = new ImportMatcher.Builder<>('/');
+        for (String importPath : RESOURCE_IMPORTS) {
+            builder.add(createResourceImport(importPath), importPath);
+        }
+        ImportMatcher<String> matcher = builder.build();
+        for (String name : RESOURCE_PATHS) {
+            List<String> expected = new ArrayList<>();
+            for (String importPath : RESOURCE_IMPORTS) {
+                if (createResourceImport(importPath).accepts(name)) {
+                    expected.add(importPath);
+                }
+            }
+            assertThat(accepted(matcher, name)).as("Resource imports accepting '%s'", name).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void candidatesKeepDeclarationOrder() {
+        ImportMatcher<String> matcher = new ImportMatcher.Builder<String>('.')
+                .add(createClassImport("a.b.C"), "exact")
+                .add(createClassImport("**"), "all")
+                .add(createClassImport("a.b.*"), "package")
+                .build();
+        assertThat(accepted(matcher, "a.b.C")).containsExactly("exact", "all", "package");
+        assertThat(accepted(matcher, "a.b.D")).containsExactly("all", "package");
+        assertThat(accepted(matcher, "x.Y")).containsExactly("all");
+    }
+
+    private static List<String> accepted(ImportMatcher<String> matcher, String name) {
+        List<String> result = new ArrayList<>();
+        int lastDelimiter = matcher.lastDelimiter(name);
+        for (ImportMatcher.Rule<String> rule : matcher.candidates(name)) {
+            if (rule.accepts(name.length(), lastDelimiter)) {
+                result.add(rule.getValue());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,106 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoaderGraph;
+import io.github.alopukhov.dare.clg.ClassLoaderGraphDefinition;
+import io.github.alopukhov.dare.clg.UnpackedTestJarsRule;
+import lombok.Cleanup;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ImportResolutionCacheTest {
+    @ClassRule
+    public static final UnpackedTestJarsRule jars = new UnpackedTestJarsRule();
+
+    @Test
+    public void importersShareResolvedClass() throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("a").addSource(jars.jarUrlA().toString());
+        gd.getOrCreateNode("b").addSource(jars.jarUrlB().toString()).addImportClasses("a", "A");
+        gd.getOrCreateNode("c").addSource(jars.jarUrlC().toString()).addImportClasses("a", "A");
+        @Cleanup ClassLoaderGraph graph = gd.materialize();
+        ClgClassLoader a = (ClgClassLoader) graph.getNode("a").getClassLoader();
+        Class<?> fromB = graph.getNode("b").getClassLoader().loadClass("A");
+        long targetCalls = a.getStatistics().get(LoaderStatistics.Counter.LOAD_CLASS_CALLS);
+        Class<?> fromC = graph.getNode("c").getClassLoader().loadClass("A");
+        assertThat(fromB).isSameAs(fromC);
+        assertThat(fromB.getClassLoader()).isSameAs(a);
+        assertThat(a.getStatistics().get(LoaderStatistics.Counter.LOAD_CLASS_CALLS)).isEqualTo(targetCalls);
+    }
+
+    @Test
+    public void concurrentLookupsAreCoalesced() throws Exception {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        final ClassLoader target = new ClassLoader(null) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                calls.incrementAndGet();
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return String.class;
+            }
+        };
+        final ImportResolutionCache cache = new ImportResolutionCache();
+        Callable<Class<?>> lookup = new Callable<Class<?>>() {
+            @Override
+            public Class<?> call() {
+                return cache.resolve(target, "x.Y");
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Class<?>> first = executor.submit(lookup);
+            assertThat(entered.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<Class<?>> second = executor.submit(lookup);
+            while (cache.getCoalesced() == 0) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            assertThat(first.get(10, TimeUnit.SECONDS)).isSameAs(String.class);
+            assertThat(second.get(10, TimeUnit.SECONDS)).isSameAs(String.class);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(cache.resolve(target, "x.Y")).isSameAs(String.class);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getResolutions()).isEqualTo(1);
+    }
+
+    @Test
+    public void reentrantLookupFromOwnerThreadDoesNotWait() {
+        final ImportResolutionCache cache = new ImportResolutionCache();
+        final AtomicInteger depth = new AtomicInteger();
+        ClassLoader target = new ClassLoader(null) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) {
+                return depth.incrementAndGet() == 1 ? cache.resolve(this, name) : Integer.class;
+            }
+        };
+        assertThat(cache.resolve(target, "x.Y")).isSameAs(Integer.class);
+        assertThat(depth.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void missesAreNotRetained() {
+        ImportResolutionCache cache = new ImportResolutionCache();
+        assertThat(cache.resolve(new ClassLoader(null) {
+        }, "x.Missing")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoaderGraph;
+import io.github.alopukhov.dare.clg.ClassLoaderGraphDefinition;
+import io.github.alopukhov.dare.clg.UnpackedTestJarsRule;
+import io.github.alopukhov.dare.clg.impl.LoaderStatistics.Counter;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoaderStatisticsTest {
+    @ClassRule
+    public static final UnpackedTestJarsRule jars = new UnpackedTestJarsRule();
+
+    @Test
+    public void latencyBucketsAreLog2() {
+        assertThat(LoaderStatistics.bucket(0)).isEqualTo(0);
+        assertThat(LoaderStatistics.bucket(1)).isEqualTo(1);
+        assertThat(LoaderStatistics.bucket(1023)).isEqualTo(10);
+        assertThat(LoaderStatistics.bucket(1024)).isEqualTo(11);
+        assertThat(LoaderStatistics.bucket(Long.MAX_VALUE)).isEqualTo(LoaderStatistics.HISTOGRAM_BUCKETS - 1);
+    }
+
+    @Test
+    public void countersAreSummedAcrossThreads() throws Exception {
+        final LoaderStatistics statistics = new LoaderStatistics();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        statistics.increment(Counter.SELF_HITS);
+                        statistics.recordLoadClass(100);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(statistics.get(Counter.SELF_HITS)).isEqualTo(4000);
+        assertThat(statistics.get(Counter.LOAD_CLASS_CALLS)).isEqualTo(4000);
+        assertThat(statistics.get(Counter.LOAD_CLASS_NANOS)).isEqualTo(400000);
+        assertThat(statistics.getHistogram()[LoaderStatistics.bucket(100)]).isEqualTo(4000);
+    }
+
+    @Test
+    public void graphNodesAreExposedAsMBeansUntilClose() throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("a").addSource(jars.jarUrlA().toString()).addChild("b");
+        gd.getOrCreateNode("b").addSource(jars.jarUrlB().toString());
+        ClassLoaderGraph graph = gd.materialize();
+        ClassLoader b = graph.getNode("b").getClassLoader();
+        b.loadClass("A");
+        b.loadClass("A");
+        try {
+            b.loadClass("Missing");
+        } catch (ClassNotFoundException expected) {
+            // expected
+        }
+        b.getResource("data/missing.txt");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Set<ObjectName> names = server.queryNames(new ObjectName(JmxRegistration.DOMAIN + ":type=ClassLoaderNode,node=\"b\",*"), null);
+        assertThat(names).isNotEmpty();
+        ObjectName nodeB = null;
+        for (ObjectName name : names) {
+            nodeB = name;
+        }
+        assertThat(server.getAttribute(nodeB, "NodeName")).isEqualTo("b");
+        assertThat((Long) server.getAttribute(nodeB, "ParentHits")).isEqualTo(2);
+        assertThat((Long) server.getAttribute(nodeB, "LoadClassCalls")).isEqualTo(3);
+        assertThat((Long) server.getAttribute(nodeB, "ClassMisses")).isEqualTo(1);
+        assertThat((Long) server.getAttribute(nodeB, "ResourceMisses")).isEqualTo(1);
+        assertThat((long[]) server.getAttribute(nodeB, "LoadClassLatencyHistogram")).hasSize(LoaderStatistics.HISTOGRAM_BUCKETS);
+        graph.close();
+        assertThat(server.isRegistered(nodeB)).isFalse();
+    }
+}
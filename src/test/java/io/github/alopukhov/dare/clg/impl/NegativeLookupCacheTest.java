@@ -0,0 +1,59 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.UnpackedTestJarsRule;
+import lombok.Cleanup;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.net.URL;
+
+import static io.github.alopukhov.dare.clg.impl.AssertClassLoader.assertClassLoader;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NegativeLookupCacheTest {
+    @ClassRule
+    public static final UnpackedTestJarsRule jars = new UnpackedTestJarsRule();
+
+    @Test
+    public void recordedMissIsReportedAsHit() {
+        NegativeLookupCache cache = new NegativeLookupCache();
+        assertThat(cache.isKnownMiss("a.B")).isFalse();
+        cache.recordMiss("a.B", cache.generation());
+        assertThat(cache.isKnownMiss("a.B")).isTrue();
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidateDropsEntriesAndStaleRecords() {
+        NegativeLookupCache cache = new NegativeLookupCache();
+        int generation = cache.generation();
+        cache.recordMiss("a.B", generation);
+        cache.invalidate();
+        cache.recordMiss("a.C", generation);
+        assertThat(cache.isKnownMiss("a.B")).isFalse();
+        assertThat(cache.isKnownMiss("a.C")).isFalse();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void sizeIsBounded() {
+        NegativeLookupCache cache = new NegativeLookupCache(16);
+        for (int i = 0; i < 100; i++) {
+            cache.recordMiss("a.B" + i, cache.generation());
+        }
+        assertThat(cache.size()).isLessThanOrEqualTo(16);
+        assertThat(cache.isKnownMiss("a.B99")).isTrue();
+    }
+
+    @Test
+    public void repeatedClassLoaderMissIsAnsweredByCache() throws Exception {
+        @Cleanup ClgClassLoader cl = new ClgClassLoader(new URL[]{jars.jarUrlA()}, ClassLoader.getSystemClassLoader(),
+                BaseStrategy.PSI, null, null, null);
+        assertClassLoader(cl).doesNotHaveClass("Missing").doesNotHaveClass("Missing").hasClass("A");
+        assertThat(cl.getNegativeLookupCache().getHits()).isEqualTo(1);
+        cl.invalidateLookupCaches();
+        assertClassLoader(cl).doesNotHaveClass("Missing");
+        assertThat(cl.getNegativeLookupCache().getHits()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,156 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoaderGraph;
+import io.github.alopukhov.dare.clg.ClassLoaderGraphDefinition;
+import io.github.alopukhov.dare.clg.MaterializationException;
+import io.github.alopukhov.dare.clg.SourceEngine;
+import io.github.alopukhov.dare.clg.UnpackedTestJarsRule;
+import lombok.Cleanup;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static io.github.alopukhov.dare.clg.impl.AssertClassLoader.assertClassLoader;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NestedJarSourceResolverTest {
+    @ClassRule
+    public static final UnpackedTestJarsRule jars = new UnpackedTestJarsRule();
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+    private String fatJarUrl;
+
+    @Before
+    public void createFatJar() throws Exception {
+        Path fatJar = tempFolder.newFile("fat jar.jar").toPath();
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(fatJar))) {
+            putStored(out, "lib/jar-a.jar", Files.readAllBytes(jars.jarA()));
+            out.putNextEntry(new ZipEntry("lib/jar-b.jar"));
+            out.write(Files.readAllBytes(jars.jarB()));
+            out.closeEntry();
+            try (JarFile jarC = new JarFile(jars.jarC().toFile())) {
+                for (JarEntry entry : Collections.list(jarC.entries())) {
+                    out.putNextEntry(new ZipEntry("classes/" + entry.getName()));
+                    try (InputStream in = jarC.getInputStream(entry)) {
+                        copy(in, out);
+                    }
+                    out.closeEntry();
+                }
+            }
+        }
+        fatJarUrl = fatJar.toUri().toURL().toString();
+    }
+
+    @Test
+    public void loadsClassesFromStoredAndDeflatedNestedJars() throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("a").addSource("jar:" + fatJarUrl + "!/lib/*-a.jar").addChild("b");
+        gd.getOrCreateNode("b").addSource("jar:" + fatJarUrl + "!/lib/jar-b.jar");
+        gd.setDefaultLoadingStrategy("spi");
+        @Cleanup ClassLoaderGraph graph = gd.materialize();
+        assertClassLoader(graph.getNode("a")).classInstances("A", "B", "C")
+                .flatExtracting("source", "superSource").containsOnly("jar-a");
+        assertClassLoader(graph.getNode("b")).classInstances("B", "C")
+                .flatExtracting("source", "superSource").containsOnly("jar-b");
+    }
+
+    @Test
+    public void nestedJarResourcesAreReadable() throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("a").addSource("jar:" + fatJarUrl + "!/lib/jar-a.jar");
+        @Cleanup ClassLoaderGraph graph = gd.materialize();
+        @Cleanup URLClassLoader reference = new URLClassLoader(new URL[]{jars.jarUrlA()}, null);
+        URL resource = graph.getNode("a").getClassLoader().getResource("data/foo.txt");
+        assertThat(resource.toString()).isEqualTo("jar:jar:" + fatJarUrl + "!/lib/jar-a.jar!/data/foo.txt");
+        assertThat(read(resource)).isEqualTo(read(reference.getResource("data/foo.txt")));
+    }
+
+    @Test
+    public void loadsClassesFromDirectoryInsideJar() throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("c").addSource("jar:" + fatJarUrl + "!/classes/");
+        @Cleanup ClassLoaderGraph graph = gd.materialize();
+        ClassLoader cl = graph.getNode("c").getClassLoader();
+        assertClassLoader(cl).classInstance("C").extracting("source").containsOnly("jar-c");
+        assertThat(cl.getResource("C.class").toString()).isEqualTo("jar:" + fatJarUrl + "!/classes/C.class");
+    }
+
+    @Test
+    public void rewrittenOuterJarIsMappedAgainOnRematerialization() throws Exception {
+        Path outer = tempFolder.newFile("outer.jar").toPath();
+        writeOuterJar(outer, jars.jarA());
+        String source = "jar:" + outer.toUri().toURL() + "!/lib/plugin.jar";
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("a").addSource(source);
+        @Cleanup ClassLoaderGraph graph = gd.materialize();
+        assertClassLoader(graph.getNode("a")).classInstance("C").extracting("source").containsOnly("jar-a");
+        writeOuterJar(outer, jars.jarB());
+        Files.setLastModifiedTime(outer, FileTime.fromMillis(Files.getLastModifiedTime(outer).toMillis() + 10000));
+        assertThat(graph.rematerialize(gd)).containsExactly("a");
+        assertClassLoader(graph.getNode("a")).doesNotHaveClass("A").classInstance("C")
+                .extracting("source").containsOnly("jar-b");
+    }
+
+    @Test(expected = MaterializationException.class)
+    public void missingNestedJarIsNotResolved() throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("a").addSource("jar:" + fatJarUrl + "!/lib/missing.jar");
+        gd.materialize().close();
+    }
+
+    @Test(expected = MaterializationException.class)
+    public void nestedJarRequiresIndexingSourceEngine() throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("a").addSource("jar:" + fatJarUrl + "!/lib/jar-a.jar")
+                .setSourceEngine(SourceEngine.URL_CLASS_LOADER);
+        gd.materialize().close();
+    }
+
+    private static void writeOuterJar(Path outer, Path nested) throws Exception {
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(outer))) {
+            putStored(out, "lib/plugin.jar", Files.readAllBytes(nested));
+        }
+    }
+
+    private static void putStored(ZipOutputStream out, String name, byte[] bytes) throws Exception {
+        ZipEntry entry = new ZipEntry(name);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(bytes.length);
+        entry.setCompressedSize(bytes.length);
+        entry.setCrc(crc.getValue());
+        out.putNextEntry(entry);
+        out.write(bytes);
+        out.closeEntry();
+    }
+
+    private static byte[] read(URL url) throws Exception {
+        try (InputStream in = url.openStream()) {
+            return EntrySource.readFully(in, 0);
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws Exception {
+        byte[] buf = new byte[8192];
+        for (int n = in.read(buf); n >= 0; n = in.read(buf)) {
+            out.write(buf, 0, n);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoaderGraph;
+import io.github.alopukhov.dare.clg.ClassLoaderGraphDefinition;
+import io.github.alopukhov.dare.clg.ClassLoaderNodeDefinition;
+import io.github.alopukhov.dare.clg.UnpackedTestJarsRule;
+import lombok.Cleanup;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PlanCacheTest {
+    @ClassRule
+    public static UnpackedTestJarsRule jars = new UnpackedTestJarsRule();
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void plannedSourcesAreReusedUntilDirectoryChanges() throws Exception {
+        Path lib = tempFolder.newFolder("lib").toPath();
+        Files.copy(jars.jarA(), lib.resolve("jar-a.jar"));
+        Path planFile = tempFolder.getRoot().toPath().resolve("plan.bin");
+        ClassLoaderGraphDefinition gd = definition(lib, planFile);
+        gd.materialize().close();
+        assertThat(planFile).exists();
+
+        ClassLoaderNodeDefinition nodeDef = gd.getNode("a");
+        PlanCache plan = PlanCache.open(planFile, getClass().getClassLoader());
+        assertThat(plan.size()).isEqualTo(2);
+        assertThat(plan.get(nodeDef)).flatExtracting("URLs").containsExactly(lib.resolve("jar-a.jar").toUri().toURL());
+
+        Files.copy(jars.jarB(), lib.resolve("jar-b.jar"));
+        Files.setLastModifiedTime(lib, FileTime.fromMillis(Files.getLastModifiedTime(lib).toMillis() + 10000));
+        assertThat(PlanCache.open(planFile, getClass().getClassLoader()).get(nodeDef)).isNull();
+        @Cleanup ClassLoaderGraph graph = gd.materialize();
+        assertThat(((URLClassLoader) graph.getNode("a").getClassLoader()).getURLs()).hasSize(2);
+        assertThat(PlanCache.open(planFile, getClass().getClassLoader()).get(nodeDef)).hasSize(1)
+                .flatExtracting("URLs").hasSize(2);
+    }
+
+    @Test
+    public void changedSourcesInvalidateNodePlan() throws Exception {
+        Path lib = tempFolder.newFolder("lib").toPath();
+        Path planFile = tempFolder.getRoot().toPath().resolve("plan.bin");
+        definition(lib, planFile).materialize().close();
+        ClassLoaderGraphDefinition changed = definition(lib, planFile);
+        changed.getNode("c").addSource(jars.jarB().toString());
+        PlanCache plan = PlanCache.open(planFile, getClass().getClassLoader());
+        assertThat(plan.get(changed.getNode("a"))).isNotNull();
+        assertThat(plan.get(changed.getNode("c"))).isNull();
+    }
+
+    @Test
+    public void lazyGraphSavesPlanOnClose() throws Exception {
+        Path lib = tempFolder.newFolder("lib").toPath();
+        Files.copy(jars.jarA(), lib.resolve("jar-a.jar"));
+        Path planFile = tempFolder.getRoot().toPath().resolve("plan.bin");
+        ClassLoaderGraphDefinition gd = definition(lib, planFile).setLazyMaterialization(true);
+        ClassLoaderGraph graph = gd.materialize();
+        graph.getNode("a").getClassLoader();
+        assertThat(planFile).doesNotExist();
+        graph.close();
+        assertThat(PlanCache.open(planFile, getClass().getClassLoader()).get(gd.getNode("a"))).isNotNull();
+    }
+
+    @Test
+    public void changedOrDeletedLiteralJarInvalidatesNodePlan() throws Exception {
+        Path lib = tempFolder.newFolder("lib").toPath();
+        Path jar = Files.copy(jars.jarA(), lib.resolve("jar-a.jar"));
+        Path planFile = tempFolder.getRoot().toPath().resolve("plan.bin");
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl().setPlanCacheFile(planFile);
+        gd.getOrCreateNode("a").addSource(jar.toString());
+        gd.materialize().close();
+        FileTime modified = Files.getLastModifiedTime(jar);
+        assertThat(PlanCache.open(planFile, getClass().getClassLoader()).get(gd.getNode("a"))).isNotNull();
+
+        Files.write(jar, new byte[]{1}, StandardOpenOption.APPEND);
+        Files.setLastModifiedTime(jar, modified);
+        assertThat(PlanCache.open(planFile, getClass().getClassLoader()).get(gd.getNode("a"))).isNull();
+
+        Files.delete(jar);
+        assertThat(PlanCache.open(planFile, getClass().getClassLoader()).get(gd.getNode("a"))).isNull();
+    }
+
+    @Test
+    public void nonFileSourcesAreNotPlanned() throws Exception {
+        Path planFile = tempFolder.getRoot().toPath().resolve("plan.bin");
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl().setPlanCacheFile(planFile);
+        gd.getOrCreateNode("a").addSource(jars.jarUrlA().toString());
+        gd.materialize().close();
+        assertThat(PlanCache.open(planFile, getClass().getClassLoader()).get(gd.getNode("a"))).isNull();
+    }
+
+    @Test
+    public void corruptedPlanIsIgnored() throws Exception {
+        Path lib = tempFolder.newFolder("lib").toPath();
+        Files.copy(jars.jarA(), lib.resolve("jar-a.jar"));
+        Path planFile = tempFolder.getRoot().toPath().resolve("plan.bin");
+        Files.write(planFile, new byte[]{1, 2, 3});
+        @Cleanup ClassLoaderGraph graph = definition(lib, planFile).materialize();
+        assertThat(((URLClassLoader) graph.getNode("a").getClassLoader()).getURLs()).hasSize(1);
+        assertThat(PlanCache.open(planFile, getClass().getClassLoader()).size()).isEqualTo(2);
+    }
+
+    private static ClassLoaderGraphDefinition definition(Path lib, Path planFile) {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl().setPlanCacheFile(planFile);
+        gd.getOrCreateNode("a").addSource(lib.toString() + "/*.jar");
+        gd.getOrCreateNode("c").addSource(jars.jarC().toString());
+        return gd;
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoadingStrategy;
+import io.github.alopukhov.dare.clg.UnpackedTestJarsRule;
+import lombok.Cleanup;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.Enumeration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PlatformPackagesTest {
+    @ClassRule
+    public static final UnpackedTestJarsRule jars = new UnpackedTestJarsRule();
+
+    @Test
+    public void javaPackagesArePlatformPackages() {
+        PlatformPackages packages = PlatformPackages.get();
+        assertThat(packages.contains("java.lang.String")).isTrue();
+        assertThat(packages.contains("java.util.concurrent.Future")).isTrue();
+        assertThat(packages.contains("com.acme.Service")).isFalse();
+        assertThat(packages.contains("A")).isFalse();
+    }
+
+    @Test
+    public void bootLayerPackagesAreDetectedOnModularRuntime() {
+        PlatformPackages packages = PlatformPackages.get();
+        if (packages.size() == 0) {
+            return;
+        }
+        assertThat(packages.contains("javax.sql.DataSource")).isTrue();
+        assertThat(packages.contains("javax.sql.Missing")).isTrue();
+        assertThat(packages.contains("javax.sqlx.DataSource")).isFalse();
+    }
+
+    @Test
+    public void platformClassesSkipSelfAndImports() throws Exception {
+        @Cleanup ClgClassLoader cl = new ClgClassLoader(new URL[]{jars.jarUrlA()}, null, new FailingStrategy(),
+                null, null, null);
+        cl.setPlatformPackages(PlatformPackages.get());
+        assertThat(cl.loadClass("java.util.List")).isSameAs(java.util.List.class);
+        assertThat(cl.tryLoad("java.util.Missing", false)).isNull();
+        assertThat(cl.getStatistics().get(LoaderStatistics.Counter.CLASS_MISSES)).isEqualTo(1);
+        if (PlatformPackages.get().size() > 0) {
+            assertThat(cl.loadClass("javax.sql.DataSource").getName()).isEqualTo("javax.sql.DataSource");
+        }
+    }
+
+    @Test
+    public void platformClassesGoToParentChain() throws Exception {
+        @Cleanup ClgClassLoader parent = new ClgClassLoader(new URL[0], ClassLoader.getSystemClassLoader(),
+                BaseStrategy.PIS, null, null, null);
+        @Cleanup ClgClassLoader cl = new ClgClassLoader(new URL[]{jars.jarUrlA()}, parent, new FailingStrategy(),
+                null, null, null);
+        cl.setPlatformPackages(PlatformPackages.get());
+        assertThat(cl.loadClass("java.lang.Runnable")).isSameAs(Runnable.class);
+        assertThat(cl.getStatistics().get(LoaderStatistics.Counter.PARENT_HITS)).isEqualTo(1);
+        assertThat(parent.getStatistics().get(LoaderStatistics.Counter.LOAD_CLASS_CALLS)).isEqualTo(1);
+    }
+
+    private static class FailingStrategy implements ClassLoadingStrategy {
+        @Override
+        public Class<?> loadClass(String className, LoadingUtil loadingUtil) {
+            throw new AssertionError("Strategy must not be used for " + className);
+        }
+
+        @Override
+        public URL getResource(String name, LoadingUtil loadingUtil) {
+            throw new AssertionError("Strategy must not be used for " + name);
+        }
+
+        @Override
+        public Enumeration<URL> getResources(String name, LoadingUtil loadingUtil) {
+            throw new AssertionError("Strategy must not be used for " + name);
+        }
+    }
+}
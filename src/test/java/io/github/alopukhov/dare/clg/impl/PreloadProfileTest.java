@@ -0,0 +1,72 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoaderGraph;
+import io.github.alopukhov.dare.clg.ClassLoaderGraphDefinition;
+import io.github.alopukhov.dare.clg.UnpackedTestJarsRule;
+import lombok.Cleanup;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PreloadProfileTest {
+    @ClassRule
+    public static final UnpackedTestJarsRule jars = new UnpackedTestJarsRule();
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void recordsDefinedClassesInDefinitionOrder() throws Exception {
+        Path file = tempFolder.getRoot().toPath().resolve("profile.txt");
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl().setPreloadProfile(file);
+        gd.getOrCreateNode("a").addSource(jars.jarUrlA().toString()).addChild("b");
+        gd.getOrCreateNode("b").addSource(jars.jarUrlB().toString());
+        gd.setDefaultLoadingStrategy("spi");
+        try (ClassLoaderGraph graph = gd.materialize()) {
+            graph.getNode("b").getClassLoader().loadClass("C");
+            graph.getNode("a").getClassLoader().loadClass("A");
+        }
+        List<String> lines = Files.readAllLines(file, UTF_8);
+        assertThat(lines.get(0)).startsWith("#");
+        assertThat(lines.subList(1, lines.size())).containsSubsequence("b\tC", "a\tA")
+                .doesNotHaveDuplicates();
+        int superClass = lines.indexOf("b\t" + Class.forName("C", false, urlClassLoader(jars.jarUrlB()))
+                .getSuperclass().getName());
+        assertThat(superClass).isPositive().isLessThan(lines.indexOf("b\tC"));
+    }
+
+    @Test
+    public void preloadsRecordedClassesWithoutInitializingThem() throws Exception {
+        Path file = tempFolder.getRoot().toPath().resolve("profile.txt");
+        Files.write(file, ("# profile\nb\tB\na\tA\nb\tMissing\nunknown\tA\n").getBytes(UTF_8));
+        PreloadProfile profile = new PreloadProfile(file);
+        @Cleanup ClgClassLoader a = new ClgClassLoader(new URL[]{jars.jarUrlA()}, null, BaseStrategy.PIS,
+                null, null, null, "a", profile.recorder());
+        @Cleanup ClgClassLoader b = new ClgClassLoader(new URL[]{jars.jarUrlB()}, a, BaseStrategy.SPI,
+                null, null, null, "b", profile.recorder());
+        Map<String, ClassLoader> loaders = new HashMap<>();
+        loaders.put("a", a);
+        loaders.put("b", b);
+        profile.start(PreloadProfile.loaders(loaders));
+        assertThat(profile.awaitPreloading(10, TimeUnit.SECONDS)).isTrue();
+        profile.close();
+        List<String> lines = Files.readAllLines(file, UTF_8);
+        assertThat(lines).contains("b\tB", "a\tA").doesNotContain("b\tMissing", "unknown\tA");
+    }
+
+    private static ClassLoader urlClassLoader(URL url) {
+        return new URLClassLoader(new URL[]{url}, null);
+    }
+}
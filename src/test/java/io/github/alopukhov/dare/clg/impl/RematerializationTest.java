@@ -0,0 +1,153 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoaderGraph;
+import io.github.alopukhov.dare.clg.ClassLoaderGraphDefinition;
+import io.github.alopukhov.dare.clg.MaterializationException;
+import io.github.alopukhov.dare.clg.UnpackedTestJarsRule;
+import lombok.Cleanup;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+
+import static io.github.alopukhov.dare.clg.impl.AssertClassLoader.assertClassLoader;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class RematerializationTest {
+    @ClassRule
+    public static UnpackedTestJarsRule jars = new UnpackedTestJarsRule();
+
+    @Test
+    public void unchangedDefinitionKeepsAllNodes() throws Exception {
+        @Cleanup ClassLoaderGraph graph = definition(jars.jarUrlC()).materialize();
+        ClassLoader a = graph.getNode("a").getClassLoader();
+        ClassLoader d = graph.getNode("d").getClassLoader();
+        assertThat(graph.rematerialize(definition(jars.jarUrlC()))).isEmpty();
+        assertThat(graph.getNode("a").getClassLoader()).isSameAs(a);
+        assertThat(graph.getNode("d").getClassLoader()).isSameAs(d);
+    }
+
+    @Test
+    public void changedNodeIsRebuiltWithDescendants() throws Exception {
+        @Cleanup ClassLoaderGraph graph = definition(jars.jarUrlC()).materialize();
+        ClassLoader a = graph.getNode("a").getClassLoader();
+        Class<?> importedA = graph.getNode("b").getClassLoader().loadClass("A");
+        ClassLoader c = graph.getNode("c").getClassLoader();
+        assertThat(graph.rematerialize(definition(jars.jarUrlB()))).containsExactly("c", "d");
+        assertThat(graph.getNode("a").getClassLoader()).isSameAs(a);
+        assertThat(graph.getNode("b").getClassLoader().loadClass("A")).isSameAs(importedA);
+        assertThat(graph.getNode("c").getClassLoader()).isNotSameAs(c);
+        assertThat(graph.getNode("c").getChild("d")).isSameAs(graph.getNode("d"));
+        assertThat(graph.getNode("d").getParent()).isSameAs(graph.getNode("c"));
+        assertClassLoader(graph.getNode("d")).hasClasses("B", "C").classInstance("C")
+                .extracting("source").containsOnly("jar-b");
+    }
+
+    @Test
+    public void importersOfChangedNodeAreRebuilt() throws Exception {
+        @Cleanup ClassLoaderGraph graph = definition(jars.jarUrlC()).materialize();
+        ClassLoader c = graph.getNode("c").getClassLoader();
+        ClassLoaderGraphDefinition updated = definition(jars.jarUrlC());
+        updated.getNode("a").setLoadingStrategy("spi");
+        assertThat(graph.rematerialize(updated)).containsExactly("a", "b");
+        assertThat(graph.getNode("c").getClassLoader()).isSameAs(c);
+        assertClassLoader(graph.getNode("b")).classInstance("A").extracting("source").containsOnly("jar-a");
+    }
+
+    @Test
+    public void removedAndAddedNodes() throws Exception {
+        @Cleanup ClassLoaderGraph graph = definition(jars.jarUrlC()).materialize();
+        ClassLoaderGraphDefinition updated = definition(jars.jarUrlC());
+        updated.getNode("c").addChild("e");
+        updated.getOrCreateNode("e").addSource(jars.jarUrlA().toString());
+        assertThat(graph.rematerialize(updated)).containsExactly("e");
+        assertThat(graph.getNode("c").getChildren()).extracting("name").containsOnly("d", "e");
+        ClassLoaderGraphDefinition removed = new ClassLoaderGraphDefinitionImpl();
+        removed.getOrCreateNode("a").addSource(jars.jarUrlA().toString());
+        removed.getOrCreateNode("b").addSource(jars.jarUrlB().toString()).addImportClasses("a", "A");
+        removed.getOrCreateNode("c").addSource(jars.jarUrlC().toString());
+        assertThat(graph.rematerialize(removed)).containsExactly("d", "e");
+        assertThat(graph.getNode("d")).isNull();
+        assertThat(graph.getNode("c").getChildren()).isEmpty();
+        assertThat(graph.getAllNodes()).extracting("name").containsOnly("a", "b", "c");
+    }
+
+    @Test
+    public void failedRematerializationKeepsPreviousNodes() throws Exception {
+        @Cleanup ClassLoaderGraph graph = definition(jars.jarUrlC()).materialize();
+        ClassLoader c = graph.getNode("c").getClassLoader();
+        ClassLoaderGraphDefinition updated = definition(jars.jarUrlB());
+        updated.getOrCreateNode("broken").addSource("unknown-protocol:missing.jar");
+        try {
+            graph.rematerialize(updated);
+            fail("Expected unresolved source to fail rematerialization");
+        } catch (MaterializationException expected) {
+            assertThat(expected.getMessage()).contains("unknown-protocol:missing.jar");
+        }
+        assertThat(graph.getNode("c").getClassLoader()).isSameAs(c);
+        assertThat(graph.getNode("c").getChild("d")).isSameAs(graph.getNode("d"));
+        assertThat(graph.getNode("broken")).isNull();
+        assertClassLoader(graph.getNode("d")).classInstance("C").extracting("source").containsOnly("jar-c");
+    }
+
+    @Test
+    public void lazyGraphDropsOnlyMaterializedChangedNodes() throws Exception {
+        @Cleanup ClassLoaderGraph graph = definition(jars.jarUrlC()).setLazyMaterialization(true).materialize();
+        ClassLoader c = graph.getNode("c").getClassLoader();
+        assertThat(graph.rematerialize(definition(jars.jarUrlB()).setLazyMaterialization(true))).containsExactly("c");
+        assertThat(graph.getNode("c").getClassLoader()).isNotSameAs(c);
+        assertClassLoader(graph.getNode("d")).classInstance("C").extracting("source").containsOnly("jar-b");
+    }
+
+    @Test
+    public void jarModifiedInPlaceIsRebuilt() throws Exception {
+        Path jar = jars.newFile("modified.jar").toPath();
+        Files.copy(jars.jarC(), jar, StandardCopyOption.REPLACE_EXISTING);
+        @Cleanup ClassLoaderGraph graph = definition(jars.asUrl(jar)).materialize();
+        assertClassLoader(graph.getNode("d")).classInstance("C").extracting("source").containsOnly("jar-c");
+        Files.copy(jars.jarB(), jar, StandardCopyOption.REPLACE_EXISTING);
+        touch(jar);
+        assertThat(graph.rematerialize(definition(jars.asUrl(jar)))).containsExactly("c", "d");
+        assertClassLoader(graph.getNode("d")).classInstance("C").extracting("source").containsOnly("jar-b");
+    }
+
+    @Test
+    public void classFileModifiedInsideDirectoryIsRebuilt() throws Exception {
+        Path classes = jars.newFolder("classes").toPath();
+        Path nested = Files.createDirectories(classes.resolve("nested"));
+        Path classFile = nested.resolve("C.class");
+        writeEntry(jars.jarC(), "C.class", classFile);
+        URL directory = jars.asUrl(classes);
+        @Cleanup ClassLoaderGraph graph = definition(directory).materialize();
+        assertThat(graph.rematerialize(definition(directory))).isEmpty();
+        writeEntry(jars.jarB(), "C.class", classFile);
+        touch(classFile);
+        assertThat(graph.rematerialize(definition(directory))).containsExactly("c", "d");
+    }
+
+    private static void writeEntry(Path jar, String entry, Path target) throws Exception {
+        try (FileSystem fs = FileSystems.newFileSystem(jar, (ClassLoader) null)) {
+            Files.copy(fs.getPath(entry), target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void touch(Path path) throws Exception {
+        Files.setLastModifiedTime(path, FileTime.fromMillis(Files.getLastModifiedTime(path).toMillis() + 10000));
+    }
+
+    private static ClassLoaderGraphDefinition definition(URL sourceOfC) {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("a").addSource(jars.jarUrlA().toString());
+        gd.getOrCreateNode("b").addSource(jars.jarUrlB().toString()).addImportClasses("a", "A");
+        gd.getOrCreateNode("c").addSource(sourceOfC.toString()).addChild("d");
+        gd.getOrCreateNode("d");
+        return gd;
+    }
+}
@@ -0,0 +1,103 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoaderGraph;
+import io.github.alopukhov.dare.clg.ClassLoaderGraphDefinition;
+import io.github.alopukhov.dare.clg.UnpackedTestJarsRule;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResourceLookupCacheTest {
+    @ClassRule
+    public static final UnpackedTestJarsRule jars = new UnpackedTestJarsRule();
+
+    @Test
+    public void cachesPositiveAndNegativeResults() throws Exception {
+        ResourceLookupCache cache = new ResourceLookupCache(4);
+        assertThat(cache.get("a.txt")).isNull();
+        cache.put("a.txt", jars.jarUrlA(), cache.generation());
+        cache.put("missing.txt", null, cache.generation());
+        assertThat(cache.get("a.txt").getUrl()).isEqualTo(jars.jarUrlA());
+        assertThat(cache.get("missing.txt").getUrl()).isNull();
+        assertThat(cache.getHits()).isEqualTo(2);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvicted() {
+        ResourceLookupCache cache = new ResourceLookupCache(2);
+        cache.put("a", null, cache.generation());
+        cache.put("b", null, cache.generation());
+        cache.get("a");
+        cache.put("c", null, cache.generation());
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isNotNull();
+    }
+
+    @Test
+    public void concurrentLookupsStayWithinMaxSize() throws Exception {
+        final ResourceLookupCache cache = new ResourceLookupCache(8);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int offset = t;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10_000; i++) {
+                        String name = "r" + (i * 4 + offset) % 64;
+                        if (cache.get(name) == null) {
+                            cache.put(name, null, cache.generation());
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(cache.size()).isLessThanOrEqualTo(8);
+        assertThat(cache.getHits() + cache.getMisses()).isEqualTo(40_000);
+    }
+
+    @Test
+    public void invalidateDropsEntriesAndStaleLookups() {
+        ResourceLookupCache cache = new ResourceLookupCache(2);
+        int generation = cache.generation();
+        cache.put("a", null, generation);
+        cache.invalidate();
+        cache.put("b", null, generation);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void nodeCacheServesRepeatedLookupsUntilClose() throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("a").addSource(jars.jarUrlA().toString()).setResourceCacheSize(16);
+        gd.getOrCreateNode("b").addSource(jars.jarUrlB().toString());
+        ClassLoaderGraph graph = gd.materialize();
+        ClgClassLoader cl = (ClgClassLoader) graph.getNode("a").getClassLoader();
+        ResourceLookupCache cache = cl.getResourceLookupCache();
+        URL resource = cl.getResource("data/foo.txt");
+        assertThat(cl.getResource("data/foo.txt")).isEqualTo(resource);
+        try (InputStream in = cl.getResourceAsStream("data/foo.txt")) {
+            assertThat(in).isNotNull();
+        }
+        assertThat(cl.getResource("data/missing.txt")).isNull();
+        assertThat(cl.getResource("data/missing.txt")).isNull();
+        assertThat(cache.getHits()).isEqualTo(3);
+        assertThat(cl.getStatistics().get(LoaderStatistics.Counter.RESOURCE_CACHE_HITS)).isEqualTo(3);
+        assertThat(((ClgClassLoader) graph.getNode("b").getClassLoader()).getResourceLookupCache()).isNull();
+        graph.close();
+        assertThat(cache.size()).isZero();
+    }
+}
@@ -0,0 +1,136 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoaderGraph;
+import io.github.alopukhov.dare.clg.ClassLoaderGraphDefinition;
+import io.github.alopukhov.dare.clg.ClassLoadingStrategy.LoadingUtil;
+import io.github.alopukhov.dare.clg.UnpackedTestJarsRule;
+import lombok.Cleanup;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import static io.github.alopukhov.dare.clg.impl.AssertClassLoader.assertClassLoader;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class RoutingStrategyTest {
+    @ClassRule
+    public static final UnpackedTestJarsRule jars = new UnpackedTestJarsRule();
+
+    @Test
+    public void classesAreRoutedByFirstMatchingRule() {
+        RoutingStrategy strategy = RoutingStrategy.parse("java.**, javax.** = P; com.acme.api.* = I; com.acme.** = sp; ** = pis");
+        assertThat(stagesFor(strategy, "java.util.List")).containsExactly("P");
+        assertThat(stagesFor(strategy, "javax.net.SocketFactory")).containsExactly("P");
+        assertThat(stagesFor(strategy, "com.acme.api.Service")).containsExactly("I");
+        assertThat(stagesFor(strategy, "com.acme.api.spi.Provider")).containsExactly("S", "P");
+        assertThat(stagesFor(strategy, "org.other.Type")).containsExactly("P", "I", "S");
+    }
+
+    @Test
+    public void resourcesAreRoutedByPackagePath() throws Exception {
+        RoutingStrategy strategy = RoutingStrategy.parse("com.acme.api.** = I; com.acme.Main = S; ** = SP");
+        RecordingLoadingUtil util = new RecordingLoadingUtil();
+        strategy.getResource("com/acme/api/messages.properties", util);
+        strategy.getResource("com/acme/Main.class", util);
+        strategy.getResource("logback.xml", util);
+        assertThat(util.calls).containsExactly("I", "S", "S", "P");
+        util.calls.clear();
+        Collections.list(strategy.getResources("com/acme/api/x", util));
+        assertThat(util.calls).containsExactly("I");
+    }
+
+    @Test
+    public void badExpressionsAreRejected() {
+        for (String expression : new String[]{"a.**", "a.**=", "a.**=PP", "a.**=X", "a.**=PSIP", ",a=P", "a.**=P", "a.**=P; b.**=S"}) {
+            try {
+                RoutingStrategy.parse(expression);
+                fail("Expected " + expression + " to be rejected");
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void routingExpressionIsResolvedAsNodeStrategy() throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("a").addSource(jars.jarUrlA().toString());
+        gd.getOrCreateNode("b").addSource(jars.jarUrlB().toString()).addImportClasses("a", "**")
+                .setLoadingStrategy("A = I; ** = SP");
+        @Cleanup ClassLoaderGraph graph = gd.materialize();
+        assertThat(String.valueOf(gd.getNode("b").getLoadingStrategy())).isEqualTo("A = I; ** = SP");
+        AssertClassLoader nodeB = assertClassLoader(graph.getNode("b"));
+        nodeB.classInstance("A").extracting("source").containsOnly("jar-a");
+        nodeB.classInstances("B", "C").extracting("source").containsOnly("jar-b");
+    }
+
+    private static List<String> stagesFor(RoutingStrategy strategy, String className) {
+        RecordingLoadingUtil util = new RecordingLoadingUtil();
+        strategy.loadClass(className, util);
+        return util.calls;
+    }
+
+    private static class RecordingLoadingUtil implements LoadingUtil {
+        private final List<String> calls = new ArrayList<>();
+
+        @Override
+        public Class<?> findClassInParent(String name) {
+            calls.add("P");
+            return null;
+        }
+
+        @Override
+        public Class<?> findClassInSelf(String name) {
+            calls.add("S");
+            return null;
+        }
+
+        @Override
+        public Class<?> findClassInImports(String name) {
+            calls.add("I");
+            return null;
+        }
+
+        @Override
+        public URL findResourceInParent(String name) {
+            calls.add("P");
+            return null;
+        }
+
+        @Override
+        public URL findResourceInSelf(String name) {
+            calls.add("S");
+            return null;
+        }
+
+        @Override
+        public URL findResourceInImports(String name) {
+            calls.add("I");
+            return null;
+        }
+
+        @Override
+        public Enumeration<URL> findResourcesInParent(String name) {
+            calls.add("P");
+            return Collections.emptyEnumeration();
+        }
+
+        @Override
+        public Enumeration<URL> findResourcesInSelf(String name) {
+            calls.add("S");
+            return Collections.emptyEnumeration();
+        }
+
+        @Override
+        public Enumeration<URL> findResourcesInImports(String name) {
+            calls.add("I");
+            return Collections.emptyEnumeration();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoaderGraph;
+import io.github.alopukhov.dare.clg.ClassLoaderGraphDefinition;
+import io.github.alopukhov.dare.clg.MaterializationException;
+import io.github.alopukhov.dare.clg.UnpackedTestJarsRule;
+import io.github.alopukhov.dare.clg.spi.BytecodeTransformer;
+import lombok.Cleanup;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static io.github.alopukhov.dare.clg.impl.AssertClassLoader.assertClassLoader;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class TransformerChainTest {
+    @ClassRule
+    public static final UnpackedTestJarsRule jars = new UnpackedTestJarsRule();
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void transformedClassesAreDefinedAndCachedAcrossGraphs() throws Exception {
+        Path cache = tempFolder.newFolder().toPath();
+        ReplacingTransformer cold = new ReplacingTransformer("1");
+        @Cleanup ClassLoaderGraph coldGraph = materialize(cache, cold);
+        assertClassLoader(coldGraph.getNode("a")).classInstance("A").extracting("source", "superSource")
+                .containsExactly("jar-x", "jar-a");
+        assertThat(cold.calls).isPositive();
+
+        ReplacingTransformer warm = new ReplacingTransformer("1");
+        @Cleanup ClassLoaderGraph warmGraph = materialize(cache, warm);
+        assertClassLoader(warmGraph.getNode("a")).classInstance("A").extracting("source", "superSource")
+                .containsExactly("jar-x", "jar-a");
+        assertThat(warm.calls).isZero();
+
+        ReplacingTransformer upgraded = new ReplacingTransformer("2");
+        @Cleanup ClassLoaderGraph upgradedGraph = materialize(cache, upgraded);
+        assertClassLoader(upgradedGraph.getNode("a")).hasClass("A");
+        assertThat(upgraded.calls).isPositive();
+    }
+
+    @Test
+    public void unchangedAndFailedResultsKeepOriginalBytes() throws Exception {
+        Path cache = tempFolder.newFolder().toPath();
+        byte[] original = "original".getBytes(UTF_8);
+        TransformerChain unchanged = TransformerChain.create(
+                Collections.<BytecodeTransformer>singletonList(new ReplacingTransformer("1")), cache);
+        assertThat(unchanged.apply("x.Y", original)).isSameAs(original);
+        assertThat(unchanged.apply("x.Y", original)).isSameAs(original);
+        assertThat(unchanged.getTransformations()).isEqualTo(1);
+        assertThat(unchanged.getCacheHits()).isEqualTo(1);
+
+        TransformerChain failing = TransformerChain.create(Arrays.<BytecodeTransformer>asList(
+                new ReplacingTransformer("1"), new FailingTransformer()), cache);
+        assertThat(failing.apply("x.Y", original)).isSameAs(original);
+        assertThat(failing.apply("x.Y", original)).isSameAs(original);
+        assertThat(failing.getTransformations()).isEqualTo(2);
+    }
+
+    @Test
+    public void transformersRequireIndexedSources() throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("a").addSource(jars.jarUrlA().toString()).setSourceEngine("url-class-loader")
+                .addTransformer(new ReplacingTransformer("1"));
+        try {
+            gd.materialize().close();
+            fail("Expected materialization to fail");
+        } catch (MaterializationException expected) {
+            assertThat(expected.getMessage()).contains("Node [a]");
+        }
+    }
+
+    private ClassLoaderGraph materialize(Path cache, BytecodeTransformer transformer) throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl().setTransformCacheDirectory(cache);
+        gd.getOrCreateNode("a").addSource(jars.jarUrlA().toString()).addTransformer(transformer);
+        return gd.materialize();
+    }
+
+    public static class ReplacingTransformer implements BytecodeTransformer {
+        private final String version;
+        private int calls;
+
+        public ReplacingTransformer(String version) {
+            this.version = version;
+        }
+
+        @Override
+        public String getVersion() {
+            return version;
+        }
+
+        @Override
+        public byte[] transform(String className, byte[] classBytes) {
+            calls++;
+            if (!"A".equals(className)) {
+                return null;
+            }
+            byte[] result = classBytes.clone();
+            byte[] from = "jar-a".getBytes(UTF_8);
+            for (int i = 0; i + from.length <= result.length; i++) {
+                if (Arrays.equals(Arrays.copyOfRange(result, i, i + from.length), from)) {
+                    result[i + from.length - 1] = 'x';
+                }
+            }
+            return result;
+        }
+    }
+
+    private static class FailingTransformer implements BytecodeTransformer {
+        @Override
+        public String getVersion() {
+            return "1";
+        }
+
+        @Override
+        public byte[] transform(String className, byte[] classBytes) {
+            throw new IllegalStateException("broken");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import io.github.alopukhov.dare.clg.ClassLoaderGraph;
+import io.github.alopukhov.dare.clg.ClassLoaderGraphDefinition;
+import io.github.alopukhov.dare.clg.LockMode;
+import io.github.alopukhov.dare.clg.UnpackedTestJarsRule;
+import lombok.Cleanup;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.alopukhov.dare.clg.impl.AssertClassLoader.assertClassLoader;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TransientLockMapTest {
+    @ClassRule
+    public static final UnpackedTestJarsRule jars = new UnpackedTestJarsRule();
+
+    @Test
+    public void lockIsSharedWhileHeldAndDroppedAfterRelease() {
+        TransientLockMap locks = new TransientLockMap();
+        TransientLockMap.NameLock first = locks.acquire("a.B");
+        TransientLockMap.NameLock second = locks.acquire("a.B");
+        assertThat(second).isSameAs(first);
+        assertThat(locks.acquire("a.C")).isNotSameAs(first);
+        locks.release(first);
+        assertThat(locks.size()).isEqualTo(2);
+        locks.release(second);
+        assertThat(locks.size()).isEqualTo(1);
+        assertThat(locks.acquire("a.B")).isNotSameAs(first);
+    }
+
+    @Test
+    public void concurrentAcquireReleaseLeavesNoEntries() throws Exception {
+        final TransientLockMap locks = new TransientLockMap();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[4];
+            for (int t = 0; t < futures.length; t++) {
+                futures[t] = executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                        for (int i = 0; i < 10000; i++) {
+                            locks.release(locks.acquire("name" + (i % 8)));
+                        }
+                    }
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(locks.size()).isZero();
+    }
+
+    @Test
+    public void transientModeDoesNotRetainLocksForLookedUpNames() throws Exception {
+        ClassLoaderGraphDefinition gd = new ClassLoaderGraphDefinitionImpl();
+        gd.getOrCreateNode("a").addSource(jars.jarUrlA().toString()).setLockMode("transient");
+        @Cleanup ClassLoaderGraph graph = gd.materialize();
+        ClgClassLoader cl = (ClgClassLoader) graph.getNode("a").getClassLoader();
+        assertClassLoader(cl).hasClasses("A", "B").doesNotHaveClass("Missing").doesNotHaveClass("Missing2");
+        assertThat(cl.getTransientLocks().size()).isZero();
+        assertThat(gd.getNode("a").getLockMode()).isEqualTo(LockMode.TRANSIENT);
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.alopukhov.dare.clg.impl;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ZipDirectoryTest {
+    private static final int ZIP64_ENTRY_COUNT = 0xffff + 10;
+
+    @Test
+    public void parsesArchiveWithMoreEntriesThanPlainEndRecordHolds() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < ZIP64_ENTRY_COUNT; i++) {
+                out.putNextEntry(new ZipEntry("e/" + i));
+                out.write(Integer.toString(i).getBytes(UTF_8));
+                out.closeEntry();
+            }
+        }
+        ZipDirectory zip = ZipDirectory.parse(ByteBuffer.wrap(bytes.toByteArray()));
+        assertThat(zip.names()).hasSize(ZIP64_ENTRY_COUNT);
+        int last = zip.indexOf("e/" + (ZIP64_ENTRY_COUNT - 1));
+        assertThat(new String(zip.read(last), UTF_8)).isEqualTo(Integer.toString(ZIP64_ENTRY_COUNT - 1));
+        assertThat(zip.indexOf("e/" + ZIP64_ENTRY_COUNT)).isEqualTo(-1);
+    }
+}
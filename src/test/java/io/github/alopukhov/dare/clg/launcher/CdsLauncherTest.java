@@ -0,0 +1,169 @@
+package io.github.alopukhov.dare.clg.launcher;
+
+import io.github.alopukhov.dare.clg.ClassLoadingStrategy;
+import io.github.alopukhov.dare.clg.LockMode;
+import io.github.alopukhov.dare.clg.spi.BytecodeTransformer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import static io.github.alopukhov.dare.clg.ClassloaderGraphFactory.defineNewGraph;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CdsLauncherTest {
+    @Rule
+    public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void parsesJavaFeatureVersion() {
+        assertThat(CdsLauncher.featureVersion("1.7")).isEqualTo(7);
+        assertThat(CdsLauncher.featureVersion("1.8")).isEqualTo(8);
+        assertThat(CdsLauncher.featureVersion("17")).isEqualTo(17);
+        assertThat(CdsLauncher.featureVersion("21-ea")).isEqualTo(21);
+        assertThat(CdsLauncher.featureVersion(null)).isEqualTo(0);
+    }
+
+    @Test
+    public void fingerprintTracksDefinitionAndSourceFiles() throws Exception {
+        Path jar = tempFolder.newFile("lib.jar").toPath();
+        LaunchInfo info = launchInfo(CdsMode.AUTO);
+        info.getGraphDefinition().getOrCreateNode("app").addSource(tempFolder.getRoot() + "/*.jar");
+        CdsLauncher launcher = new CdsLauncher(info, null);
+        String initial = launcher.fingerprint();
+        assertThat(launcher.fingerprint()).isEqualTo(initial);
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() - 60_000));
+        String touched = launcher.fingerprint();
+        assertThat(touched).isNotEqualTo(initial);
+        info.getGraphDefinition().getOrCreateNode("app").setLoadingStrategy("SPI");
+        assertThat(launcher.fingerprint()).isNotEqualTo(touched);
+    }
+
+    @Test
+    public void fingerprintExpandsSourcesLikeMaterializer() throws Exception {
+        Path nested = tempFolder.newFolder("modules", "core").toPath();
+        Path jar = Files.createFile(nested.resolve("core.jar"));
+        LaunchInfo info = launchInfo(CdsMode.AUTO);
+        info.getGraphDefinition().getOrCreateNode("app").addSource(tempFolder.getRoot() + "/modules/*/*.jar")
+                .addSource(tempFolder.getRoot() + "/*.jar");
+        CdsLauncher launcher = new CdsLauncher(info, null);
+        String initial = launcher.fingerprint();
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() - 60_000));
+        String touched = launcher.fingerprint();
+        assertThat(touched).isNotEqualTo(initial);
+        Files.createFile(tempFolder.getRoot().toPath().resolve("modules").resolve("ignored.jar"));
+        assertThat(launcher.fingerprint()).isEqualTo(touched);
+    }
+
+    @Test
+    public void fingerprintIsStableForCustomStrategiesAndTracksNodeSettings() throws Exception {
+        LaunchInfo info = launchInfo(CdsMode.AUTO);
+        info.getGraphDefinition().setDefaultLoadingStrategy(new CustomStrategy());
+        CdsLauncher launcher = new CdsLauncher(info, null);
+        String initial = launcher.fingerprint();
+        info.getGraphDefinition().setDefaultLoadingStrategy(new CustomStrategy());
+        assertThat(launcher.fingerprint()).isEqualTo(initial);
+        info.getGraphDefinition().getOrCreateNode("app").setLockMode(LockMode.TRANSIENT);
+        String locked = launcher.fingerprint();
+        assertThat(locked).isNotEqualTo(initial);
+        info.getGraphDefinition().getOrCreateNode("app").addTransformer(new VersionedTransformer());
+        String transformed = launcher.fingerprint();
+        assertThat(transformed).isNotEqualTo(locked);
+        info.getGraphDefinition().setLazyMaterialization(true);
+        assertThat(launcher.fingerprint()).isNotEqualTo(transformed);
+    }
+
+    @Test
+    public void trainingRunDumpsArchiveAndClassList() throws Exception {
+        Path archive = tempFolder.getRoot().toPath().resolve("clg-x.jsa");
+        CdsLauncher launcher = new CdsLauncher(launchInfo(CdsMode.TRAIN), "clg.properties");
+        List<String> command = launcher.childCommand(Collections.singletonList("-Xmx64m"), archive, false, 21, new String[]{"arg"});
+        assertThat(command).containsSubsequence("-Xmx64m", "-XX:ArchiveClassesAtExit=" + archive,
+                "-D" + CdsLauncher.CLASS_LIST_PROPERTY + "=" + tempFolder.getRoot().toPath().resolve("clg-x.classes"),
+                "-D" + CdsLauncher.CHILD_PROPERTY + "=true",
+                "-D" + Launcher.LAUNCH_CONFIG_LOCATION + "=clg.properties",
+                Launcher.class.getName(), "arg");
+    }
+
+    @Test
+    public void agentDebugAndJmxOptionsStayInParentJvm() throws Exception {
+        Path archive = tempFolder.getRoot().toPath().resolve("clg-x.jsa");
+        CdsLauncher launcher = new CdsLauncher(launchInfo(CdsMode.AUTO), null);
+        List<String> jvmArguments = Arrays.asList("-Xmx64m",
+                "-agentlib:jdwp=transport=dt_socket,server=y,suspend=n,address=5005",
+                "-agentpath:/opt/profiler/libagent.so", "-javaagent:/opt/agent.jar", "-Xdebug",
+                "-Dcom.sun.management.jmxremote.port=9010", "-Dapp.mode=test");
+        assertThat(launcher.childCommand(jvmArguments, archive, true, 17, new String[0]))
+                .contains("-Xmx64m", "-Dapp.mode=test")
+                .doesNotContainAnyElementsOf(jvmArguments.subList(1, 6));
+    }
+
+    @Test
+    public void existingArchiveIsReused() throws Exception {
+        Path archive = tempFolder.getRoot().toPath().resolve("clg-x.jsa");
+        CdsLauncher launcher = new CdsLauncher(launchInfo(CdsMode.AUTO), null);
+        assertThat(launcher.childCommand(Collections.<String>emptyList(), archive, true, 17, new String[0]))
+                .contains("-XX:SharedArchiveFile=" + archive)
+                .doesNotContain("-XX:ArchiveClassesAtExit=" + archive);
+        assertThat(launcher.childCommand(Collections.<String>emptyList(), archive, false, 19, new String[0]))
+                .contains("-XX:+AutoCreateSharedArchive", "-XX:SharedArchiveFile=" + archive);
+    }
+
+    @Test
+    public void archiveRunPreloadsRecordedClassList() throws Exception {
+        Path archive = tempFolder.getRoot().toPath().resolve("clg-x.jsa");
+        String classListOption = "-D" + CdsLauncher.CLASS_LIST_PROPERTY + "="
+                + tempFolder.getRoot().toPath().resolve("clg-x.classes");
+        CdsLauncher launcher = new CdsLauncher(launchInfo(CdsMode.AUTO), null);
+        assertThat(launcher.childCommand(Collections.<String>emptyList(), archive, true, 17, new String[0]))
+                .doesNotContain(classListOption);
+        tempFolder.newFile("clg-x.classes");
+        assertThat(launcher.childCommand(Collections.<String>emptyList(), archive, true, 17, new String[0]))
+                .containsSubsequence("-XX:SharedArchiveFile=" + archive, classListOption);
+    }
+
+    private static LaunchInfo launchInfo(CdsMode mode) {
+        LaunchInfo info = new LaunchInfo();
+        info.setGraphDefinition(defineNewGraph());
+        info.setCdsMode(mode);
+        return info;
+    }
+
+    private static class CustomStrategy implements ClassLoadingStrategy {
+        @Override
+        public Class<?> loadClass(String className, LoadingUtil loadingUtil) {
+            return loadingUtil.findClassInSelf(className);
+        }
+
+        @Override
+        public URL getResource(String name, LoadingUtil loadingUtil) {
+            return loadingUtil.findResourceInSelf(name);
+        }
+
+        @Override
+        public Enumeration<URL> getResources(String name, LoadingUtil loadingUtil) throws IOException {
+            return loadingUtil.findResourcesInSelf(name);
+        }
+    }
+
+    private static class VersionedTransformer implements BytecodeTransformer {
+        @Override
+        public String getVersion() {
+            return "1";
+        }
+
+        @Override
+        public byte[] transform(String className, byte[] classBytes) {
+            return classBytes;
+        }
+    }
+}
@@ -9,9 +9,13 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.Properties;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -190,6 +194,52 @@ public class LauncherTest {
                 .doesNotContain("not found");
     }
 
+    @Test
+    public void testSummaryPrinterFromBundle() throws Exception {
+        // given
+        Path jarBDirectory = explode(testJars.jarB());
+        Properties p = new Properties();
+        p.setProperty("node.app.sources", testJars.testPrinterJar().toString());
+        p.setProperty("node.jara.sources", testJars.jarA().toString());
+        p.setProperty("node.jarb.sources", jarBDirectory.toString() + "/");
+        p.setProperty("node.app.import.from.jara.classes", "A");
+        p.setProperty("node.app.import.from.jarb.classes", "B,C");
+        p.setProperty("launcher.main.class", "SummaryPrinter");
+        Path bundle = tempFolder.getRoot().toPath().resolve("app.clgb");
+        GraphBundle.write(saveProperties(p), bundle);
+        Launcher launcher = new Launcher();
+        launcher.readBundle(bundle);
+        // when
+        launcher.run(new String[]{outputPath().toString()});
+        // then
+        assertThat(launcher.launchInfo().getGraphDefinition().getNode("jarb").getSources())
+                .containsExactly("jar:" + bundle.toUri().toURL() + "!/nodes/jarb/0/");
+        assertThat(readFile(outputPath()))
+                .contains("A: found; source: jar-a; super-source: jar-a")
+                .contains("B: found; source: jar-b; super-source: jar-b")
+                .contains("C: found; source: jar-b; super-source: jar-b")
+                .contains("Base: not found")
+                .contains("Source: not found");
+    }
+
+    private Path explode(Path jar) throws IOException {
+        Path dir = tempFolder.newFolder().toPath();
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            for (JarEntry entry : Collections.list(jarFile.entries())) {
+                Path target = dir.resolve(entry.getName());
+                if (entry.isDirectory()) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.createDirectories(target.getParent());
+                    try (InputStream in = jarFile.getInputStream(entry)) {
+                        Files.copy(in, target);
+                    }
+                }
+            }
+        }
+        return dir;
+    }
+
     private Path saveProperties(Properties p) throws IOException {
         Path path = tempFolder.getRoot().toPath().resolve("config.properties");
         try (BufferedWriter out = Files.newBufferedWriter(path, UTF_8)) {
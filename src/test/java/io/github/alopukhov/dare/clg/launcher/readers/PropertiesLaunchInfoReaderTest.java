@@ -1,6 +1,8 @@
 package io.github.alopukhov.dare.clg.launcher.readers;
 
 import io.github.alopukhov.dare.clg.ClassLoaderGraphDefinition;
+import io.github.alopukhov.dare.clg.SourceEngine;
+import io.github.alopukhov.dare.clg.launcher.CdsMode;
 import io.github.alopukhov.dare.clg.launcher.ConfigurationException;
 import io.github.alopukhov.dare.clg.launcher.LaunchInfo;
 import io.github.alopukhov.dare.clg.launcher.LaunchInfoReader;
@@ -11,6 +13,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -32,6 +35,38 @@ public class PropertiesLaunchInfoReaderTest {
         assertThat(graphDefinition.getNode("a").getSources()).containsExactly("i", "j", "k", "l");
     }
 
+    @Test
+    public void readsNodeSourceEngine() throws IOException, ConfigurationException {
+        String props = "node.a.sources = i\n" +
+                "node.a.source.engine = memory-mapped\n";
+        LaunchInfo launchInfo = new PropertiesLaunchInfoReader().readLaunchInfo(inputStreamFromString(props));
+        assertThat(launchInfo.getGraphDefinition().getNode("a").getSourceEngine()).isEqualTo(SourceEngine.MEMORY_MAPPED);
+    }
+
+    @Test
+    public void readsGraphPreloadProfile() throws IOException, ConfigurationException {
+        String props = "graph.preload.profile = build/clg-preload.txt\n";
+        LaunchInfo launchInfo = new PropertiesLaunchInfoReader().readLaunchInfo(inputStreamFromString(props));
+        assertThat(launchInfo.getGraphDefinition().getPreloadProfile()).isEqualTo(Paths.get("build/clg-preload.txt"));
+    }
+
+    @Test
+    public void readsLauncherCdsSettings() throws IOException, ConfigurationException {
+        String props = "launcher.cds.mode = train\n" +
+                "launcher.cds.archive.directory = build/cds\n";
+        LaunchInfo launchInfo = new PropertiesLaunchInfoReader().readLaunchInfo(inputStreamFromString(props));
+        assertThat(launchInfo.getCdsMode()).isEqualTo(CdsMode.TRAIN);
+        assertThat(launchInfo.getCdsArchiveDirectory()).isEqualTo(Paths.get("build/cds"));
+    }
+
+    @Test
+    public void readsNodeResourceCacheSize() throws IOException, ConfigurationException {
+        String props = "node.a.sources = i\n" +
+                "node.a.resource.cache.size = 512\n";
+        LaunchInfo launchInfo = new PropertiesLaunchInfoReader().readLaunchInfo(inputStreamFromString(props));
+        assertThat(launchInfo.getGraphDefinition().getNode("a").getResourceCacheSize()).isEqualTo(512);
+    }
+
     private InputStream inputStreamFromString(String string) throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         baos.write(string.getBytes(StandardCharsets.UTF_8));